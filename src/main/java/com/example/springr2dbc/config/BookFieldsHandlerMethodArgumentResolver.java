@@ -0,0 +1,23 @@
+package com.example.springr2dbc.config;
+
+import com.example.springr2dbc.dto.BookFields;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+public class BookFieldsHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return BookFields.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Mono<Object> resolveArgument(MethodParameter methodParameter, BindingContext bindingContext, ServerWebExchange serverWebExchange) {
+        String fields = serverWebExchange.getRequest().getQueryParams().getFirst("fields");
+
+        return Mono.fromCallable(() -> BookFields.parse(fields));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.springr2dbc.config;
+
+import com.example.springr2dbc.deadline.DeadlineConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "deadline.statement-timeout.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineConfig {
+
+    @Bean
+    public static BeanPostProcessor deadlineConnectionFactoryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof ConnectionFactory connectionFactory
+                        ? new DeadlineConnectionFactory(connectionFactory)
+                        : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.springr2dbc.config;
+
+import com.example.springr2dbc.deadline.DeadlineConnectionFactory;
+import com.example.springr2dbc.health.DatabaseHealthIndicator;
+import com.example.springr2dbc.health.ShardsHealthContributor;
+import com.example.springr2dbc.repository.sharding.ShardedBookStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.r2dbc.ConnectionFactoryDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "book.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * The shard connection factories are not beans, so that Boot keeps
+     * auto-configuring the primary one; they get the same decoration here.
+     */
+    public record ShardConnectionFactories(List<ConnectionFactory> connectionFactories) {
+    }
+
+    @Bean
+    public ShardConnectionFactories shardConnectionFactories(
+            @Value("${book.sharding.urls}") List<String> urls,
+            @Value("${deadline.statement-timeout.enabled:true}") boolean statementTimeout,
+            ObjectProvider<ConnectionFactoryDecorator> decorators) {
+        // Apply the same decorators (e.g. statement observations) Boot applies to the primary factory
+        List<ConnectionFactory> connectionFactories = urls.stream()
+                .map(ConnectionFactories::get)
+                .map(connectionFactory -> decorators.orderedStream()
+                        .reduce(connectionFactory, (decorated, decorator) -> decorator.decorate(decorated), (a, b) -> b))
+                .map(connectionFactory -> statementTimeout
+                        ? new DeadlineConnectionFactory(connectionFactory)
+                        : connectionFactory)
+                .toList();
+        return new ShardConnectionFactories(connectionFactories);
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(ShardConnectionFactories shards) {
+        return new ShardSchemaInitializer(shards.connectionFactories());
+    }
+
+    @Bean
+    @Primary
+    public ShardedBookStore shardedBookStore(ShardConnectionFactories shards, ShardSchemaInitializer schema) {
+        return new ShardedBookStore(shards.connectionFactories());
+    }
+
+    @Bean
+    public ShardsHealthContributor shardsHealthContributor(
+            ShardConnectionFactories shards,
+            MeterRegistry meterRegistry,
+            @Value("${health.database.validation-query:SELECT 1}") String validationQuery,
+            @Value("${health.database.degraded-threshold:500ms}") Duration degradedThreshold,
+            @Value("${health.database.probe-timeout:2s}") Duration probeTimeout,
+            @Value("${health.database.stale-after:30s}") Duration staleAfter) {
+        Map<String, DatabaseHealthIndicator> indicators = new LinkedHashMap<>();
+        List<ConnectionFactory> connectionFactories = shards.connectionFactories();
+        for (int i = 0; i < connectionFactories.size(); i++) {
+            String name = "shard" + i;
+            indicators.put(name, new DatabaseHealthIndicator(
+                    name, connectionFactories.get(i), meterRegistry, validationQuery, degradedThreshold,
+                    probeTimeout, staleAfter));
+        }
+        return new ShardsHealthContributor(indicators);
+    }
+
+    /**
+     * Runs {@code schema-shard.sql} through one {@link ConnectionFactoryInitializer}
+     * per shard, with the initializers' usual startup and shutdown lifecycle.
+     */
+    public static class ShardSchemaInitializer implements InitializingBean, DisposableBean {
+
+        private final List<ConnectionFactoryInitializer> initializers;
+
+        public ShardSchemaInitializer(List<ConnectionFactory> connectionFactories) {
+            this.initializers = connectionFactories.stream()
+                    .map(connectionFactory -> {
+                        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+                        initializer.setConnectionFactory(connectionFactory);
+                        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema-shard.sql")));
+                        return initializer;
+                    })
+                    .toList();
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+            initializers.forEach(ConnectionFactoryInitializer::afterPropertiesSet);
+        }
+
+        @Override
+        public void destroy() {
+            initializers.forEach(ConnectionFactoryInitializer::destroy);
+        }
+    }
+}
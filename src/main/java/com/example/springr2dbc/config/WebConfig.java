@@ -9,5 +9,6 @@ public class WebConfig implements WebFluxConfigurer {
     @Override
     public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
         configurer.addCustomResolver(new PageableHandlerMethodArgumentResolver());
+        configurer.addCustomResolver(new BookFieldsHandlerMethodArgumentResolver());
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,12 @@
 package com.example.springr2dbc.controller;
 
+import com.example.springr2dbc.dto.BookFields;
 import com.example.springr2dbc.dto.BookRequest;
 import com.example.springr2dbc.dto.BookResponse;
+import com.example.springr2dbc.dto.PurgeJobResponse;
 import com.example.springr2dbc.mapper.BookMapper;
+import com.example.springr2dbc.mapper.PurgeJobMapper;
+import com.example.springr2dbc.service.BookPurgeService;
 import com.example.springr2dbc.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -10,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
@@ -21,23 +26,32 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookPurgeService purgeService;
+
     @GetMapping
-    public Mono<ResponseEntity<Page<BookResponse>>> getAllBooks(Pageable pageable) {
-        return bookService.getAllBooks(pageable)
+    public Mono<ResponseEntity<Page<BookResponse>>> getAllBooks(Pageable pageable, BookFields fields) {
+        return bookService.getAllBooks(pageable, fields)
                 .map(page -> {
                     // Convert Page<Book> -> Page<BookResponse>
                     Page<BookResponse> responsePage =
-                            page.map(BookMapper::toResponse);
+                            page.map(book -> BookMapper.toResponse(book, fields));
 
                     return ResponseEntity.ok(responsePage);
                 })
                 .defaultIfEmpty(ResponseEntity.noContent().build());
     }
 
+    @GetMapping("/search")
+    public Flux<BookResponse> searchBooks(@RequestParam String title, BookFields fields) {
+        return bookService.findByTitleContains(title, fields)
+                .map(book -> BookMapper.toResponse(book, fields));
+    }
+
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<BookResponse>> getBookById(@PathVariable int id) {
-        return bookService.getBookById(id)
-                .map(BookMapper::toResponse)
+    public Mono<ResponseEntity<BookResponse>> getBookById(@PathVariable int id, BookFields fields) {
+        return bookService.getBookById(id, fields)
+                .map(book -> BookMapper.toResponse(book, fields))
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
@@ -66,8 +80,20 @@ public class BookController {
     }
 
     @DeleteMapping
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public Mono<Void> deleteAllBooks() {
-        return bookService.deleteAll();
+    public Mono<ResponseEntity<PurgeJobResponse>> deleteAllBooks(@RequestParam(defaultValue = "false") boolean truncate) {
+        return purgeService.start(truncate)
+                .map(PurgeJobMapper::toResponse)
+                .map(job -> ResponseEntity
+                        .accepted()
+                        .location(URI.create("/api/v1/books/purges/" + job.getId()))
+                        .body(job));
+    }
+
+    @GetMapping("/purges/{jobId}")
+    public Mono<ResponseEntity<PurgeJobResponse>> getPurge(@PathVariable String jobId) {
+        return purgeService.findJob(jobId)
+                .map(PurgeJobMapper::toResponse)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 }
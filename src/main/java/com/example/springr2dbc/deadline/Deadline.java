@@ -0,0 +1,77 @@
+package com.example.springr2dbc.deadline;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Point in time by which a request must complete. It travels in the Reactor
+ * context under its own class as key.
+ */
+public final class Deadline {
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Fails the given Mono with a {@link DeadlineExceededException} once the
+     * deadline in the subscriber context expires, cancelling the work still in
+     * flight. Any other error raised after expiry (e.g. the database's
+     * statement timeout) is reported as the deadline too.
+     */
+    public static <T> Mono<T> enforce(Mono<T> source) {
+        return Mono.deferContextual(context -> from(context)
+                .map(deadline -> deadline.isExpired()
+                        ? Mono.<T>error(expired())
+                        : source.timeout(deadline.remaining(), Mono.defer(() -> Mono.error(expired())))
+                                .onErrorMap(ex -> deadline.isExpired() && !(ex instanceof DeadlineExceededException),
+                                        Deadline::expired))
+                .orElse(source));
+    }
+
+    /**
+     * Same as {@link #enforce(Mono)} but bounds the whole stream rather than
+     * the gap between elements.
+     */
+    public static <T> Flux<T> enforceMany(Flux<T> source) {
+        return Flux.deferContextual(context -> from(context)
+                .map(deadline -> deadline.isExpired()
+                        ? Flux.<T>error(expired())
+                        : source.takeUntilOther(Mono.delay(deadline.remaining()).then(Mono.error(expired())))
+                                .onErrorMap(ex -> deadline.isExpired() && !(ex instanceof DeadlineExceededException),
+                                        Deadline::expired))
+                .orElse(source));
+    }
+
+    static DeadlineExceededException expired() {
+        return new DeadlineExceededException();
+    }
+
+    private static DeadlineExceededException expired(Throwable cause) {
+        DeadlineExceededException ex = expired();
+        ex.initCause(cause);
+        return ex;
+    }
+}
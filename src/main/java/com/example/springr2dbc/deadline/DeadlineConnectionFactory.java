@@ -0,0 +1,127 @@
+package com.example.springr2dbc.deadline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Sets the statement timeout of connections acquired under a {@link Deadline}
+ * to what is left of it, so the database aborts queries that nobody is
+ * waiting for anymore.
+ * <p>
+ * Setting the timeout costs a round trip on drivers such as MariaDB, so the
+ * value applied to each physical connection is remembered: it is rounded up
+ * to {@link #GRANULARITY} and only sent again when the remembered value is
+ * shorter than the remaining time or more than one step longer. Without a
+ * deadline nothing is sent, unless an earlier deadline left a timeout on the
+ * pooled connection that has to be cleared. If the database rejects the
+ * setting, timeouts are no longer set and queries still run.
+ */
+@Slf4j
+public class DeadlineConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    static final Duration GRANULARITY = Duration.ofMillis(250);
+
+    private final ConnectionFactory delegate;
+    private final Cache<Connection, Duration> applied = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+    private volatile boolean supported = true;
+
+    public DeadlineConnectionFactory(ConnectionFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.<Connection>deferContextual(context -> {
+            Deadline deadline = Deadline.from(context).orElse(null);
+            if (deadline != null && deadline.isExpired()) {
+                return Mono.error(Deadline.expired());
+            }
+
+            return Mono.from(delegate.create())
+                    .flatMap(connection -> applyTimeout(connection, deadline));
+        });
+    }
+
+    private Mono<Connection> applyTimeout(Connection connection, Deadline deadline) {
+        if (!supported) {
+            return Mono.just(connection);
+        }
+
+        Connection physical = physical(connection);
+        Duration current = applied.getIfPresent(physical);
+        Duration target;
+        if (deadline == null) {
+            if (current == null || current.isZero()) {
+                return Mono.just(connection);
+            }
+            target = Duration.ZERO;
+        } else {
+            Duration remaining = deadline.remaining();
+            if (current != null && !current.isZero() && current.compareTo(remaining) >= 0
+                    && current.minus(remaining).compareTo(GRANULARITY) <= 0) {
+                return Mono.just(connection);
+            }
+            target = roundUp(remaining);
+        }
+
+        return Mono.from(connection.setStatementTimeout(target))
+                .then(Mono.fromSupplier(() -> {
+                    applied.put(physical, target);
+                    return connection;
+                }))
+                .onErrorResume(ex -> {
+                    supported = false;
+                    applied.invalidate(physical);
+                    log.warn("Statement timeouts disabled, the database rejected them: {}", ex.toString());
+                    return Mono.just(connection);
+                });
+    }
+
+    private static Duration roundUp(Duration timeout) {
+        long steps = (timeout.toNanos() + GRANULARITY.toNanos() - 1) / GRANULARITY.toNanos();
+        return GRANULARITY.multipliedBy(Math.max(1, steps));
+    }
+
+    private static Connection physical(Connection connection) {
+        // Pool and proxy wrappers change per acquisition, the driver connection does not
+        Connection current = connection;
+        while (current instanceof Wrapped<?> wrapped && wrapped.unwrap() instanceof Connection inner && inner != current) {
+            current = inner;
+        }
+        return current;
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    @Override
+    public void dispose() {
+        if (delegate instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return delegate instanceof Disposable disposable && disposable.isDisposed();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.springr2dbc.deadline;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The request's {@link Deadline} expired. The deadline is chosen by the
+ * client, so this is not a failure of the service: fallbacks pass it through
+ * and the circuit breaker ignores it.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    public DeadlineExceededException() {
+        super("Request deadline exceeded");
+    }
+}
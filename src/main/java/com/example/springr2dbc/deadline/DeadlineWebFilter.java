@@ -0,0 +1,82 @@
+package com.example.springr2dbc.deadline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Puts a {@link Deadline} for every API request into the Reactor context,
+ * taken from the {@value #HEADER} header or the default for the route.
+ * Client timeouts are clamped to {@code [min-timeout, max-timeout]}; zero,
+ * negative and malformed values are ignored.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class DeadlineWebFilter implements WebFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final Duration readTimeout;
+    private final Duration writeTimeout;
+    private final Duration minTimeout;
+    private final Duration maxTimeout;
+
+    public DeadlineWebFilter(@Value("${deadline.read-timeout:2s}") Duration readTimeout,
+                             @Value("${deadline.write-timeout:5s}") Duration writeTimeout,
+                             @Value("${deadline.min-timeout:100ms}") Duration minTimeout,
+                             @Value("${deadline.max-timeout:30s}") Duration maxTimeout) {
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!request.getPath().value().startsWith("/api/")) {
+            return chain.filter(exchange);
+        }
+
+        Deadline deadline = Deadline.after(timeout(request));
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(Deadline.class, deadline));
+    }
+
+    private Duration timeout(ServerHttpRequest request) {
+        Duration timeout = HttpMethod.GET.equals(request.getMethod()) ? readTimeout : writeTimeout;
+
+        String requested = request.getHeaders().getFirst(HEADER);
+        if (requested == null) {
+            return timeout;
+        }
+
+        Duration clientTimeout;
+        try {
+            // Plain numbers are milliseconds, e.g. "250" or "250ms"
+            clientTimeout = DurationStyle.detectAndParse(requested.trim(), ChronoUnit.MILLIS);
+        } catch (IllegalArgumentException ex) {
+            // Ignore a malformed header and keep the route default
+            return timeout;
+        }
+
+        if (clientTimeout.isNegative() || clientTimeout.isZero()) {
+            return timeout;
+        }
+        if (clientTimeout.compareTo(minTimeout) < 0) {
+            return minTimeout;
+        }
+        return clientTimeout.compareTo(maxTimeout) > 0 ? maxTimeout : clientTimeout;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springr2dbc.dto;
+
+import com.example.springr2dbc.exception.InvalidFieldsException;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldset requested through {@code ?fields=id,title}. The selected
+ * names double as column names for the SQL projection.
+ */
+@EqualsAndHashCode
+@ToString
+public final class BookFields {
+
+    public static final List<String> NAMES = List.of("id", "title", "description");
+    public static final BookFields ALL = new BookFields(NAMES);
+
+    private final List<String> columns;
+
+    private BookFields(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public static BookFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        Set<String> requested = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!NAMES.contains(name)) {
+                throw new InvalidFieldsException("Unknown field: " + name);
+            }
+            requested.add(name);
+        }
+
+        if (requested.isEmpty() || requested.size() == NAMES.size()) {
+            return ALL;
+        }
+        // Keep the declaration order so equal selections produce identical SQL
+        return new BookFields(NAMES.stream().filter(requested::contains).toList());
+    }
+
+    public boolean isAll() {
+        return columns.size() == NAMES.size();
+    }
+
+    public boolean includes(String name) {
+        return columns.contains(name);
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+}
@@ -1,14 +1,54 @@
 package com.example.springr2dbc.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class BookResponse {
-    private int id;
+    private Integer id;
     private String title;
     private String description;
+
+    // Fields left out of the JSON for a sparse fieldset; requested fields stay even when null
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BookFields fields = BookFields.ALL;
+
+    public BookResponse(Integer id, String title, String description) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+    }
+
+    public BookResponse(Integer id, String title, String description, BookFields fields) {
+        this(id, title, description);
+        this.fields = fields;
+    }
+
+    @JsonValue
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        if (fields.includes("id")) {
+            json.put("id", id);
+        }
+        if (fields.includes("title")) {
+            json.put("title", title);
+        }
+        if (fields.includes("description")) {
+            json.put("description", description);
+        }
+        return json;
+    }
 }
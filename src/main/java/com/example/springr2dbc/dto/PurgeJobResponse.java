@@ -0,0 +1,25 @@
+package com.example.springr2dbc.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurgeJobResponse {
+    private String id;
+    private String status;
+    private String mode;
+    private Long totalRows;
+    private long deletedRows;
+    private long chunks;
+    private Integer lastDeletedId;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
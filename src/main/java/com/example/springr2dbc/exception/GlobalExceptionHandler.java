@@ -6,9 +6,31 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<ApiResponse<Object>> handleInvalidFields(InvalidFieldsException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.failure(ex.getMessage()));
+    }
+
+    @ExceptionHandler(PurgeConflictException.class)
+    public ResponseEntity<ApiResponse<Object>> handlePurgeConflict(PurgeConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .location(URI.create("/api/v1/books/purges/" + ex.getRunningJobId()))
+                .body(ApiResponse.failure(ex.getMessage()));
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTimeout(TimeoutException ex) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(ApiResponse.failure(ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<Object>> handleAllExceptions(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,11 @@
+package com.example.springr2dbc.exception;
+
+/**
+ * The {@code fields} query parameter names a field the API does not expose.
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springr2dbc.exception;
+
+import lombok.Getter;
+
+/**
+ * A purge was requested while one in the other mode is still running.
+ */
+@Getter
+public class PurgeConflictException extends RuntimeException {
+
+    private final String runningJobId;
+
+    public PurgeConflictException(String runningJobId, boolean runningTruncate) {
+        super("Purge " + runningJobId + " is already running with truncate=" + runningTruncate);
+        this.runningJobId = runningJobId;
+    }
+}
@@ -1,27 +1,135 @@
 package com.example.springr2dbc.health;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the last result of a scheduled validation probe, so health checks
+ * never open a connection themselves. A probe that does not finish within
+ * its timeout reports DOWN, and a snapshot older than the staleness limit is
+ * reported DOWN rather than served as current.
+ */
 @Component
 public class DatabaseHealthIndicator implements ReactiveHealthIndicator {
 
+    public static final Status DEGRADED = new Status("DEGRADED", "Validation query is slower than the configured threshold");
+
     private final ConnectionFactory connectionFactory;
+    private final String validationQuery;
+    private final Duration degradedThreshold;
+    private final Duration probeTimeout;
+    private final Duration staleAfter;
+    private final Timer probeLatency;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(
+            Health.unknown().withDetail("reason", "No probe has completed yet").build(), null));
 
-    public DatabaseHealthIndicator(ConnectionFactory connectionFactory) {
+    @Autowired
+    public DatabaseHealthIndicator(ConnectionFactory connectionFactory,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${health.database.validation-query:SELECT 1}") String validationQuery,
+                                   @Value("${health.database.degraded-threshold:500ms}") Duration degradedThreshold,
+                                   @Value("${health.database.probe-timeout:2s}") Duration probeTimeout,
+                                   @Value("${health.database.stale-after:30s}") Duration staleAfter) {
+        this("primary", connectionFactory, meterRegistry, validationQuery, degradedThreshold, probeTimeout, staleAfter);
+    }
+
+    /**
+     * Indicator for one named database, e.g. a shard. Its probe latency is
+     * tagged with that name.
+     */
+    public DatabaseHealthIndicator(String database,
+                                   ConnectionFactory connectionFactory,
+                                   MeterRegistry meterRegistry,
+                                   String validationQuery,
+                                   Duration degradedThreshold,
+                                   Duration probeTimeout,
+                                   Duration staleAfter) {
         this.connectionFactory = connectionFactory;
+        this.validationQuery = validationQuery;
+        this.degradedThreshold = degradedThreshold;
+        this.probeTimeout = probeTimeout;
+        this.staleAfter = staleAfter;
+        this.probeLatency = Timer.builder("health.database.probe.latency")
+                .tag("database", database)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Override
     public Mono<Health> health() {
-        return Mono.from(connectionFactory.create())
-                .flatMap(connection ->
-                        Mono.from(connection.close())
-                        .then(Mono.just(Health.up().build()))
-                )
-                .onErrorResume(ex -> Mono.just(Health.down(ex).build()));
+        return Mono.fromSupplier(() -> {
+            Snapshot current = snapshot.get();
+            if (current.checkedAt() != null && current.checkedAt().plus(staleAfter).isBefore(Instant.now())) {
+                return Health.down()
+                        .withDetail("reason", "No probe has completed in the last " + staleAfter.toMillis() + "ms")
+                        .withDetail("checkedAt", current.checkedAt().toString())
+                        .build();
+            }
+            return current.health();
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${health.database.probe-interval:PT10S}")
+    public Mono<Void> probe() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+
+            // Bounded so a hung connection reports DOWN and releases the scheduler thread
+            return validate()
+                    .timeout(probeTimeout)
+                    .then(Mono.fromSupplier(() -> toHealth(Duration.ofNanos(System.nanoTime() - start))))
+                    .onErrorResume(ex -> Mono.just(Health.down(unwrapCleanupFailure(ex))
+                            .withDetail("checkedAt", Instant.now().toString())
+                            .build()))
+                    .doOnNext(health -> {
+                        probeLatency.record(Duration.ofNanos(System.nanoTime() - start));
+                        snapshot.set(new Snapshot(health, Instant.now()));
+                    })
+                    .then();
+        });
+    }
+
+    private Mono<Void> validate() {
+        Mono<Connection> connection = Mono.from(connectionFactory.create());
+
+        return Mono.usingWhen(connection,
+                c -> Flux.from(c.createStatement(validationQuery).execute())
+                        .flatMap(result -> result.map((row, metadata) -> 1))
+                        .then(),
+                Connection::close);
+    }
+
+    private static Throwable unwrapCleanupFailure(Throwable ex) {
+        // Mono.usingWhen reports a failed close as a plain RuntimeException wrapping the cause
+        return ex.getClass() == RuntimeException.class && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private Health toHealth(Duration latency) {
+        Health.Builder builder = latency.compareTo(degradedThreshold) > 0
+                ? Health.status(DEGRADED)
+                : Health.up();
+
+        return builder
+                .withDetail("latency", latency.toMillis() + "ms")
+                .withDetail("checkedAt", Instant.now().toString())
+                .build();
+    }
+
+    private record Snapshot(Health health, Instant checkedAt) {
     }
 }
@@ -0,0 +1,43 @@
+package com.example.springr2dbc.health;
+
+import org.springframework.boot.actuate.health.CompositeReactiveHealthContributor;
+import org.springframework.boot.actuate.health.NamedContributor;
+import org.springframework.boot.actuate.health.ReactiveHealthContributor;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * One probed {@link DatabaseHealthIndicator} per shard, reported under
+ * {@code shards} with an entry per shard.
+ */
+public class ShardsHealthContributor implements CompositeReactiveHealthContributor {
+
+    private final Map<String, DatabaseHealthIndicator> shards;
+
+    public ShardsHealthContributor(Map<String, DatabaseHealthIndicator> shards) {
+        this.shards = shards;
+    }
+
+    @Scheduled(fixedDelayString = "${health.database.probe-interval:PT10S}")
+    public Mono<Void> probe() {
+        return Flux.fromIterable(shards.values())
+                .flatMap(DatabaseHealthIndicator::probe)
+                .then();
+    }
+
+    @Override
+    public ReactiveHealthContributor getContributor(String name) {
+        return shards.get(name);
+    }
+
+    @Override
+    public Iterator<NamedContributor<ReactiveHealthContributor>> iterator() {
+        return shards.entrySet().stream()
+                .map(entry -> NamedContributor.<ReactiveHealthContributor>of(entry.getKey(), entry.getValue()))
+                .iterator();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.springr2dbc.health;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * OUT_OF_SERVICE until the warm-up phase has finished. Included in the
+ * readiness group so a fresh instance only receives traffic once its hot
+ * paths are compiled. A warm-up that keeps failing is abandoned and the
+ * instance reported UP anyway, with the error in the details, so a transient
+ * fault during startup cannot keep it out of rotation for good.
+ */
+@Component
+public class WarmupHealthIndicator implements ReactiveHealthIndicator {
+
+    private final AtomicReference<Health> state = new AtomicReference<>(
+            Health.outOfService().withDetail("reason", "Warm-up has not finished").build());
+
+    @Override
+    public Mono<Health> health() {
+        return Mono.just(state.get());
+    }
+
+    public void complete(long batches, Duration duration) {
+        state.set(Health.up()
+                .withDetail("batches", batches)
+                .withDetail("duration", duration.toMillis() + "ms")
+                .build());
+    }
+
+    public void abandon(Throwable error) {
+        state.set(Health.up()
+                .withException(error)
+                .withDetail("reason", "Warm-up abandoned after repeated failures")
+                .build());
+    }
+}
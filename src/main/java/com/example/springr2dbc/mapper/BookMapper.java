@@ -1,5 +1,6 @@
 package com.example.springr2dbc.mapper;
 
+import com.example.springr2dbc.dto.BookFields;
 import com.example.springr2dbc.dto.BookRequest;
 import com.example.springr2dbc.dto.BookResponse;
 import com.example.springr2dbc.model.Book;
@@ -16,4 +17,15 @@ public class BookMapper {
     public static BookResponse toResponse(Book book) {
         return new BookResponse(book.getId(), book.getTitle(), book.getDescription());
     }
+
+    public static BookResponse toResponse(Book book, BookFields fields) {
+        if (fields.isAll()) {
+            return toResponse(book);
+        }
+        return new BookResponse(
+                fields.includes("id") ? book.getId() : null,
+                fields.includes("title") ? book.getTitle() : null,
+                fields.includes("description") ? book.getDescription() : null,
+                fields);
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.springr2dbc.mapper;
+
+import com.example.springr2dbc.dto.PurgeJobResponse;
+import com.example.springr2dbc.service.PurgeJob;
+
+public class PurgeJobMapper {
+
+    public static PurgeJobResponse toResponse(PurgeJob job) {
+        return new PurgeJobResponse(
+                job.getId(),
+                job.getStatus().name(),
+                job.isTruncate() ? "truncate" : "chunked",
+                job.getTotalRows() >= 0 ? job.getTotalRows() : null,
+                job.getDeletedRows(),
+                job.getChunks(),
+                job.getLastDeletedId(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getError());
+    }
+}
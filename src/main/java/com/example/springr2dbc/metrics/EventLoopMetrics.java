@@ -0,0 +1,97 @@
+package com.example.springr2dbc.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Netty event loop lag and backlog. Every server loop gets a periodic no-op
+ * task whose queueing delay is published as {@code netty.eventloop.lag}. A
+ * loop that never runs the probe reports the time since it was submitted, so
+ * a stuck loop keeps growing the gauge. The loop's task queue length is read
+ * directly as {@code netty.eventloop.pending.tasks}.
+ */
+@Component
+public class EventLoopMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<ReactorResourceFactory> resourceFactory;
+    private List<LoopProbe> probes;
+
+    public EventLoopMetrics(MeterRegistry meterRegistry, ObjectProvider<ReactorResourceFactory> resourceFactory) {
+        this.meterRegistry = meterRegistry;
+        this.resourceFactory = resourceFactory;
+    }
+
+    @Scheduled(fixedRateString = "${eventloop.metrics.probe-interval:PT1S}")
+    public void probe() {
+        if (probes == null) {
+            ReactorResourceFactory factory = resourceFactory.getIfAvailable();
+            if (factory == null || !factory.isRunning()) {
+                return;
+            }
+            probes = register(factory);
+        }
+
+        for (LoopProbe probe : probes) {
+            probe.submit();
+        }
+    }
+
+    private List<LoopProbe> register(ReactorResourceFactory factory) {
+        List<LoopProbe> loops = new ArrayList<>();
+        int index = 0;
+        for (EventExecutor executor : factory.getLoopResources().onServer(true)) {
+            String loop = Integer.toString(index++);
+            LoopProbe probe = new LoopProbe(executor);
+            TimeGauge.builder("netty.eventloop.lag", probe, TimeUnit.NANOSECONDS, LoopProbe::lagNanos)
+                    .tag("loop", loop)
+                    .register(meterRegistry);
+            if (executor instanceof SingleThreadEventExecutor singleThreaded) {
+                Gauge.builder("netty.eventloop.pending.tasks", singleThreaded, SingleThreadEventExecutor::pendingTasks)
+                        .tag("loop", loop)
+                        .register(meterRegistry);
+            }
+            loops.add(probe);
+        }
+        return loops;
+    }
+
+    private static final class LoopProbe {
+        private final EventExecutor executor;
+        private final AtomicLong pendingSince = new AtomicLong();
+        private final AtomicLong lastLag = new AtomicLong();
+
+        private LoopProbe(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        private void submit() {
+            long submittedAt = System.nanoTime();
+            // Skip while the previous probe is still queued
+            if (pendingSince.compareAndSet(0, submittedAt)) {
+                executor.execute(() -> {
+                    lastLag.set(System.nanoTime() - submittedAt);
+                    pendingSince.set(0);
+                });
+            }
+        }
+
+        private double lagNanos() {
+            long since = pendingSince.get();
+            long lag = lastLag.get();
+            return since == 0 ? lag : Math.max(lag, System.nanoTime() - since);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.springr2dbc.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.search.Search;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Instruments the executors behind the Reactor schedulers (parallel, single,
+ * boundedElastic) with {@link ExecutorServiceMetrics}: task execution and
+ * idle timers plus queue depth, active and pool size gauges, published as
+ * the {@code executor.*} meters tagged {@code name=reactor}.
+ * <p>
+ * Each executor is tagged with its scheduler and a slot number. Slots of
+ * executors that have shut down are freed, and their meters removed, the
+ * next time that scheduler creates an executor, so the slot tag is bounded
+ * by the scheduler's peak number of live executors. Only executors created
+ * after this bean are decorated, which covers the lazily created shared
+ * schedulers.
+ */
+@Component
+public class SchedulerMetrics {
+
+    private static final String DECORATOR_KEY = "springr2dbc-metrics";
+    private static final String EXECUTOR_NAME = "reactor";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<ScheduledExecutorService>> slots = new HashMap<>();
+    private final boolean registered;
+
+    public SchedulerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.registered = Schedulers.addExecutorServiceDecorator(DECORATOR_KEY, this::decorate);
+    }
+
+    @PreDestroy
+    public void close() {
+        // Leave a decorator registered by another instance in place
+        if (registered) {
+            Schedulers.removeExecutorServiceDecorator(DECORATOR_KEY);
+        }
+    }
+
+    synchronized ScheduledExecutorService decorate(Scheduler scheduler, ScheduledExecutorService executor) {
+        String name = schedulerName(scheduler);
+        List<ScheduledExecutorService> executors = slots.computeIfAbsent(name, key -> new ArrayList<>());
+
+        int slot = -1;
+        for (int i = 0; i < executors.size(); i++) {
+            ScheduledExecutorService previous = executors.get(i);
+            if (previous != null && previous.isShutdown()) {
+                Search.in(meterRegistry).tags(tags(name, i)).meters().forEach(meterRegistry::remove);
+                executors.set(i, null);
+                previous = null;
+            }
+            if (previous == null && slot < 0) {
+                slot = i;
+            }
+        }
+        if (slot < 0) {
+            slot = executors.size();
+            executors.add(null);
+        }
+
+        executors.set(slot, executor);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, EXECUTOR_NAME, tags(name, slot));
+    }
+
+    private static Tags tags(String scheduler, int slot) {
+        return Tags.of("scheduler", scheduler, "slot", Integer.toString(slot));
+    }
+
+    private static String schedulerName(Scheduler scheduler) {
+        String name = scheduler.toString();
+        int nameEnd = name.indexOf('(');
+        return nameEnd > 0 ? name.substring(0, nameEnd) : name;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.springr2dbc.ratelimit;
+
+import com.example.springr2dbc.warmup.Warmup;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Per-client rate limiting for the API. Clients presenting one of the
+ * configured {@value #API_KEY_HEADER} values get a bucket per key; everyone
+ * else, including callers sending an unknown key, is keyed by the socket's
+ * remote address. {@value #FORWARDED_FOR_HEADER} is only honored when the
+ * connection comes from one of the configured trusted proxies, in which case
+ * the right-most address not belonging to a trusted proxy is the client.
+ * Reads and writes have separate buckets, and warm-up requests are not
+ * limited. Idle clients are evicted and the number of tracked
+ * clients is bounded.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitWebFilter implements WebFilter {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final Pattern IPV6_LITERAL = Pattern.compile("\\[?[0-9A-Fa-f:.]+]?");
+
+    private final Set<String> apiKeys;
+    private final Set<String> trustedProxies;
+    private final Limit read;
+    private final Limit write;
+
+    public RateLimitWebFilter(MeterRegistry meterRegistry,
+                              @Value("${ratelimit.read.permits-per-second:100}") double readRate,
+                              @Value("${ratelimit.read.burst:200}") int readBurst,
+                              @Value("${ratelimit.write.permits-per-second:20}") double writeRate,
+                              @Value("${ratelimit.write.burst:40}") int writeBurst,
+                              @Value("${ratelimit.max-clients:100000}") long maxClients,
+                              @Value("${ratelimit.idle-timeout:10m}") Duration idleTimeout,
+                              @Value("${ratelimit.api-keys:}") Set<String> apiKeys,
+                              @Value("${ratelimit.trusted-proxies:}") Set<String> trustedProxies) {
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(RateLimitWebFilter::normalize)
+                .collect(Collectors.toUnmodifiableSet());
+        this.read = new Limit("read", readRate, readBurst, maxClients, idleTimeout, meterRegistry);
+        this.write = new Limit("write", writeRate, writeBurst, maxClients, idleTimeout, meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!request.getPath().value().startsWith("/api/") || Warmup.isActive(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        HttpMethod method = request.getMethod();
+        Limit limit = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) ? read : write;
+        TokenBucket bucket = limit.buckets.get(clientKey(request), limit.newBucket);
+
+        long now = System.nanoTime();
+        long waitNanos = bucket.tryAcquire(now);
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(LIMIT_HEADER, limit.burstHeader);
+        headers.set(REMAINING_HEADER, Integer.toString(bucket.remaining(now)));
+
+        if (waitNanos > 0) {
+            limit.throttled.increment();
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return response.setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        String apiKey = request.getHeaders().getFirst(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "addr:unknown";
+        }
+        String address = remoteAddress.getAddress().getHostAddress();
+        if (trustedProxies.contains(address)) {
+            address = forwardedClient(request, address);
+        }
+        return "addr:" + address;
+    }
+
+    private String forwardedClient(ServerHttpRequest request, String proxy) {
+        List<String> hops = new ArrayList<>();
+        for (String header : request.getHeaders().getOrEmpty(FORWARDED_FOR_HEADER)) {
+            for (String hop : header.split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(normalize(hop.trim()));
+                }
+            }
+        }
+        // Entries left of the first untrusted hop are whatever the client chose to send
+        String client = proxy;
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            client = hops.get(i);
+            if (!trustedProxies.contains(client)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    private static String normalize(String address) {
+        // IPv6 has several spellings; only literals are parsed so no name lookup ever happens
+        if (address.indexOf(':') < 0 || !IPV6_LITERAL.matcher(address).matches()) {
+            return address;
+        }
+        try {
+            return InetAddress.getByName(address).getHostAddress();
+        } catch (UnknownHostException | SecurityException ex) {
+            return address;
+        }
+    }
+
+    private static final class Limit {
+        private final Cache<String, TokenBucket> buckets;
+        private final Function<String, TokenBucket> newBucket;
+        private final String burstHeader;
+        private final Counter throttled;
+
+        private Limit(String route, double permitsPerSecond, int burst, long maxClients,
+                      Duration idleTimeout, MeterRegistry meterRegistry) {
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(idleTimeout)
+                    .build();
+            this.newBucket = key -> new TokenBucket(permitsPerSecond, burst);
+            this.burstHeader = Integer.toString(burst);
+            this.throttled = Counter.builder("ratelimit.throttled")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            Gauge.builder("ratelimit.clients", buckets, Cache::estimatedSize)
+                    .tag("route", route)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.springr2dbc.repository;
 
 import com.example.springr2dbc.model.Book;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +9,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface BookRepository extends R2dbcRepository<Book, Integer> {
+public interface BookRepository extends R2dbcRepository<Book, Integer>, BookRepositoryCustom {
     Mono<Book> findByDescription(String description);
     Flux<Book> findByTitleContains(String title);
 
@@ -17,4 +18,15 @@ public interface BookRepository extends R2dbcRepository<Book, Integer> {
 
     @Query("SELECT COUNT(*) FROM books")
     Mono<Long> countAll();
+
+    @Query("SELECT id FROM books WHERE id > :afterId ORDER BY id LIMIT :size")
+    Flux<Integer> findIdsAfter(int afterId, int size);
+
+    @Modifying
+    @Query("DELETE FROM books WHERE id > :afterId AND id <= :upToId")
+    Mono<Long> deleteRange(int afterId, int upToId);
+
+    @Modifying
+    @Query("TRUNCATE TABLE books")
+    Mono<Void> truncate();
 }
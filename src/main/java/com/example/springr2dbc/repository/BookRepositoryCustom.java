@@ -0,0 +1,18 @@
+package com.example.springr2dbc.repository;
+
+import com.example.springr2dbc.model.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Projected variants of the book queries that only read the given columns.
+ */
+public interface BookRepositoryCustom {
+    Flux<Book> findAllPaged(int limit, int offset, List<String> columns);
+
+    Flux<Book> findByTitleContains(String title, List<String> columns);
+
+    Mono<Book> findById(int id, List<String> columns);
+}
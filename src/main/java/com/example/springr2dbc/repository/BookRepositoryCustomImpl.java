@@ -0,0 +1,45 @@
+package com.example.springr2dbc.repository;
+
+import com.example.springr2dbc.model.Book;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    public BookRepositoryCustomImpl(R2dbcEntityTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Flux<Book> findAllPaged(int limit, int offset, List<String> columns) {
+        return template.select(Book.class)
+                .matching(Query.empty().columns(columns).limit(limit).offset(offset))
+                .all();
+    }
+
+    @Override
+    public Flux<Book> findByTitleContains(String title, List<String> columns) {
+        String pattern = "%" + Escaper.DEFAULT.escape(title) + "%";
+
+        return template.select(Book.class)
+                .matching(query(where("title").like(pattern)).columns(columns))
+                .all();
+    }
+
+    @Override
+    public Mono<Book> findById(int id, List<String> columns) {
+        return template.select(Book.class)
+                .matching(query(where("id").is(id)).columns(columns))
+                .one();
+    }
+}
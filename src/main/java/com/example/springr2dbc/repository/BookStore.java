@@ -0,0 +1,37 @@
+package com.example.springr2dbc.repository;
+
+import com.example.springr2dbc.dto.BookFields;
+import com.example.springr2dbc.model.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage operations used by the service layer, backed either by the single
+ * database repository or by the shard router.
+ */
+public interface BookStore {
+    Flux<Book> findPage(int limit, int offset, BookFields fields);
+
+    Mono<Long> count();
+
+    Flux<Book> findByTitleContains(String title, BookFields fields);
+
+    Mono<Book> findById(int id, BookFields fields);
+
+    Mono<Book> save(Book book);
+
+    Mono<Void> deleteById(int id);
+
+    /**
+     * Largest id among the next {@code size} ids after {@code afterId}, or
+     * empty when no rows are left. Bounds one purge chunk.
+     */
+    Mono<Integer> findChunkEnd(int afterId, int size);
+
+    /**
+     * Deletes the rows with {@code afterId < id <= upToId} and returns how many were deleted.
+     */
+    Mono<Long> deleteRange(int afterId, int upToId);
+
+    Mono<Void> truncate();
+}
@@ -0,0 +1,68 @@
+package com.example.springr2dbc.repository;
+
+import com.example.springr2dbc.dto.BookFields;
+import com.example.springr2dbc.model.Book;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Component
+public class RepositoryBookStore implements BookStore {
+
+    private final BookRepository repository;
+
+    public RepositoryBookStore(BookRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Flux<Book> findPage(int limit, int offset, BookFields fields) {
+        return fields.isAll()
+                ? repository.findAllPaged(limit, offset)
+                : repository.findAllPaged(limit, offset, fields.columns());
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return repository.countAll();
+    }
+
+    @Override
+    public Flux<Book> findByTitleContains(String title, BookFields fields) {
+        return fields.isAll()
+                ? repository.findByTitleContains(title)
+                : repository.findByTitleContains(title, fields.columns());
+    }
+
+    @Override
+    public Mono<Book> findById(int id, BookFields fields) {
+        return fields.isAll()
+                ? repository.findById(id)
+                : repository.findById(id, fields.columns());
+    }
+
+    @Override
+    public Mono<Book> save(Book book) {
+        return repository.save(book);
+    }
+
+    @Override
+    public Mono<Void> deleteById(int id) {
+        return repository.deleteById(id);
+    }
+
+    @Override
+    public Mono<Integer> findChunkEnd(int afterId, int size) {
+        return repository.findIdsAfter(afterId, size).reduce(Math::max);
+    }
+
+    @Override
+    public Mono<Long> deleteRange(int afterId, int upToId) {
+        return repository.deleteRange(afterId, upToId);
+    }
+
+    @Override
+    public Mono<Void> truncate() {
+        return repository.truncate();
+    }
+}
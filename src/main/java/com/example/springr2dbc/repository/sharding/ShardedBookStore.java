@@ -0,0 +1,222 @@
+package com.example.springr2dbc.repository.sharding;
+
+import com.example.springr2dbc.dto.BookFields;
+import com.example.springr2dbc.model.Book;
+import com.example.springr2dbc.repository.BookStore;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Partitions books by id across several databases.
+ * <p>
+ * Ids carry the owning shard's index in their high bits and a shard-local
+ * sequence in the low {@value #SEQUENCE_BITS} bits, so they are globally
+ * unique and the owner does not depend on how many shards exist: appending a
+ * shard to the list leaves every existing id routed where it was. Shards must
+ * therefore only ever be appended, never reordered or removed. By-id
+ * operations go to one shard; pages, searches and purge chunks query every
+ * shard in parallel ordered by id and k-way merge the results.
+ */
+public class ShardedBookStore implements BookStore {
+
+    private static final Comparator<Book> BY_ID = Comparator.comparingInt(Book::getId);
+
+    // 6 shard bits above 25 sequence bits keep ids positive ints: 64 shards of 33M rows
+    static final int SEQUENCE_BITS = 25;
+    static final int MAX_SHARDS = 1 << (Integer.SIZE - 1 - SEQUENCE_BITS);
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final List<DatabaseClient> shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedBookStore(List<ConnectionFactory> connectionFactories) {
+        if (connectionFactories.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (connectionFactories.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("At most " + MAX_SHARDS + " shards are supported");
+        }
+        this.shards = connectionFactories.stream().map(DatabaseClient::create).toList();
+    }
+
+    static int shardOf(int id) {
+        return id >>> SEQUENCE_BITS;
+    }
+
+    static int idOf(int shard, long sequence) {
+        if (sequence > MAX_SEQUENCE) {
+            throw new IllegalStateException("Shard " + shard + " has used up its " + MAX_SEQUENCE + " ids");
+        }
+        return (shard << SEQUENCE_BITS) | (int) sequence;
+    }
+
+    private Optional<DatabaseClient> owner(int id) {
+        // Ids outside any configured shard cannot exist
+        int shard = shardOf(id);
+        return id > 0 && shard < shards.size() ? Optional.of(shards.get(shard)) : Optional.empty();
+    }
+
+    @Override
+    public Flux<Book> findPage(int limit, int offset, BookFields fields) {
+        // Every shard may own the whole page, so each returns up to offset + limit rows
+        String sql = "SELECT " + columns(fields) + " FROM books ORDER BY id LIMIT :limit";
+
+        return scatter(BY_ID, client -> client.sql(sql)
+                        .bind("limit", offset + limit)
+                        .map(ShardedBookStore::toBook)
+                        .all())
+                .skip(offset)
+                .take(limit);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Flux.fromIterable(shards)
+                .flatMap(client -> client.sql("SELECT COUNT(*) FROM books")
+                        .map(row -> row.get(0, Long.class))
+                        .one())
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Flux<Book> findByTitleContains(String title, BookFields fields) {
+        String sql = "SELECT " + columns(fields) + " FROM books WHERE title LIKE :pattern ORDER BY id";
+        String pattern = "%" + Escaper.DEFAULT.escape(title) + "%";
+
+        return scatter(BY_ID, client -> client.sql(sql)
+                .bind("pattern", pattern)
+                .map(ShardedBookStore::toBook)
+                .all());
+    }
+
+    @Override
+    public Mono<Book> findById(int id, BookFields fields) {
+        return Mono.justOrEmpty(owner(id)).flatMap(client -> client
+                .sql("SELECT " + columns(fields) + " FROM books WHERE id = :id")
+                .bind("id", id)
+                .map(ShardedBookStore::toBook)
+                .one());
+    }
+
+    @Override
+    public Mono<Book> save(Book book) {
+        return book.getId() == 0 ? insert(book) : update(book);
+    }
+
+    @Override
+    public Mono<Void> deleteById(int id) {
+        return Mono.justOrEmpty(owner(id)).flatMap(client -> client
+                .sql("DELETE FROM books WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .then());
+    }
+
+    @Override
+    public Mono<Integer> findChunkEnd(int afterId, int size) {
+        // Merge the next ids of every shard so a chunk covers size rows in total
+        return scatter(Comparator.<Integer>naturalOrder(), client -> client
+                        .sql("SELECT id FROM books WHERE id > :afterId ORDER BY id LIMIT :size")
+                        .bind("afterId", afterId)
+                        .bind("size", size)
+                        .map(row -> row.get(0, Integer.class))
+                        .all())
+                .take(size)
+                .reduce(Math::max);
+    }
+
+    @Override
+    public Mono<Long> deleteRange(int afterId, int upToId) {
+        return Flux.fromIterable(shards)
+                .flatMap(client -> client.sql("DELETE FROM books WHERE id > :afterId AND id <= :upToId")
+                        .bind("afterId", afterId)
+                        .bind("upToId", upToId)
+                        .fetch()
+                        .rowsUpdated())
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Mono<Void> truncate() {
+        return Flux.fromIterable(shards)
+                .flatMap(client -> client.sql("TRUNCATE TABLE books").fetch().rowsUpdated())
+                .then();
+    }
+
+    private Mono<Book> insert(Book book) {
+        int shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+        DatabaseClient client = shards.get(shard);
+
+        return client.sql("SELECT NEXT VALUE FOR book_id_seq")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(sequence -> {
+                    int id = idOf(shard, sequence);
+                    return client.sql("INSERT INTO books (id, title, description) VALUES (:id, :title, :description)")
+                            .bind("id", id)
+                            .bind("title", Parameters.in(R2dbcType.VARCHAR, book.getTitle()))
+                            .bind("description", Parameters.in(R2dbcType.VARCHAR, book.getDescription()))
+                            .fetch()
+                            .rowsUpdated()
+                            .thenReturn(new Book(id, book.getTitle(), book.getDescription()));
+                });
+    }
+
+    private Mono<Book> update(Book book) {
+        return Mono.justOrEmpty(owner(book.getId()))
+                .flatMap(client -> client
+                        .sql("UPDATE books SET title = :title, description = :description WHERE id = :id")
+                        .bind("id", book.getId())
+                        .bind("title", Parameters.in(R2dbcType.VARCHAR, book.getTitle()))
+                        .bind("description", Parameters.in(R2dbcType.VARCHAR, book.getDescription()))
+                        .fetch()
+                        .rowsUpdated())
+                .defaultIfEmpty(0L)
+                // Same outcome as R2dbcRepository.save for a missing id
+                .flatMap(rows -> rows > 0
+                        ? Mono.just(book)
+                        : Mono.error(new TransientDataAccessResourceException(
+                                "Failed to update table [books]; Row with Id [" + book.getId() + "] does not exist")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> scatter(Comparator<? super T> order, Function<DatabaseClient, Flux<T>> query) {
+        Publisher<T>[] results = shards.stream().map(query).toArray(Publisher[]::new);
+        return Flux.mergeComparing(order, results);
+    }
+
+    private static String columns(BookFields fields) {
+        // The merge orders by id, so it is always read even when not returned
+        return fields.includes("id")
+                ? String.join(", ", fields.columns())
+                : "id, " + String.join(", ", fields.columns());
+    }
+
+    private static Book toBook(Row row, RowMetadata metadata) {
+        Book book = new Book();
+        book.setId(row.get("id", Integer.class));
+        if (metadata.contains("title")) {
+            book.setTitle(row.get("title", String.class));
+        }
+        if (metadata.contains("description")) {
+            book.setDescription(row.get("description", String.class));
+        }
+        return book;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.springr2dbc.service;
+
+import com.example.springr2dbc.exception.PurgeConflictException;
+import com.example.springr2dbc.repository.BookStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Deletes all books as a background job instead of one unbounded DELETE.
+ * Rows are removed in id-ordered chunks, each a short range delete, and the
+ * job pauses between chunks to stay under {@code book.purge.rows-per-second}.
+ * {@code TRUNCATE} is available for when no concurrent traffic is expected.
+ * Only one purge runs at a time; finished jobs are kept for status queries
+ * until {@code book.purge.job-retention} passes.
+ * <p>
+ * Job state lives in this instance only. Behind a load balancer, a status
+ * query routed to another instance returns 404, and another instance may
+ * start its own purge.
+ */
+@Service
+public class BookPurgeService {
+
+    private final BookStore store;
+    private final BookQueryCache queryCache;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final double rowsPerSecond;
+    private final Cache<String, PurgeJob> jobs;
+    private final AtomicReference<PurgeJob> current = new AtomicReference<>();
+    private volatile Disposable running;
+    private final Counter deletedRows;
+    private final Counter chunks;
+
+    public BookPurgeService(BookStore store,
+                            BookQueryCache queryCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${book.purge.chunk-size:1000}") int chunkSize,
+                            @Value("${book.purge.rows-per-second:5000}") double rowsPerSecond,
+                            @Value("${book.purge.job-retention:1h}") Duration jobRetention) {
+        this.store = store;
+        this.queryCache = queryCache;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.rowsPerSecond = rowsPerSecond;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(jobRetention)
+                .build();
+        this.deletedRows = meterRegistry.counter("book.purge.rows");
+        this.chunks = meterRegistry.counter("book.purge.chunks");
+    }
+
+    /**
+     * Starts a purge, or returns the one already running in the same mode.
+     * Fails with {@link PurgeConflictException} when the running purge uses
+     * the other mode.
+     */
+    public Mono<PurgeJob> start(boolean truncate) {
+        return Mono.fromCallable(() -> {
+            PurgeJob previous = current.get();
+            if (previous != null && previous.isRunning()) {
+                return sameMode(previous, truncate);
+            }
+
+            PurgeJob job = new PurgeJob(UUID.randomUUID().toString(), truncate);
+            if (!current.compareAndSet(previous, job)) {
+                return sameMode(current.get(), truncate);
+            }
+            jobs.put(job.getId(), job);
+            running = run(job).subscribe();
+            return job;
+        });
+    }
+
+    private static PurgeJob sameMode(PurgeJob running, boolean truncate) {
+        if (running.isTruncate() != truncate) {
+            throw new PurgeConflictException(running.getId(), running.isTruncate());
+        }
+        return running;
+    }
+
+    /**
+     * Stops the running purge on shutdown; it is marked failed so the job
+     * does not report progress that will never happen.
+     */
+    @PreDestroy
+    public void shutdown() {
+        Disposable purge = running;
+        if (purge != null) {
+            purge.dispose();
+        }
+    }
+
+    public Mono<PurgeJob> findJob(String id) {
+        return Mono.justOrEmpty(jobs.getIfPresent(id));
+    }
+
+    Mono<Void> run(PurgeJob job) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Mono<Void> purge = job.isTruncate()
+                ? store.truncate().doOnSuccess(v -> job.truncated())
+                : Mono.just(Integer.MIN_VALUE)
+                        .expand(afterId -> deleteChunk(job, afterId))
+                        .then();
+
+        return store.count()
+                .doOnNext(job::started)
+                .then(purge)
+                // Readers may have cached pages of rows that are gone now
+                .doOnTerminate(queryCache::invalidate)
+                .doOnSubscribe(s -> meterRegistry.counter("book.purge.calls").increment())
+                .doOnSuccess(v -> job.completed())
+                .doOnError(e -> {
+                    meterRegistry.counter("book.purge.errors").increment();
+                    job.failed(e);
+                })
+                .onErrorResume(e -> Mono.empty())
+                .doOnCancel(() -> job.failed(new CancellationException("Purge stopped by shutdown")))
+                .doFinally(signal -> sample.stop(meterRegistry.timer("book.purge.duration")));
+    }
+
+    private Mono<Integer> deleteChunk(PurgeJob job, int afterId) {
+        return store.findChunkEnd(afterId, chunkSize)
+                .flatMap(upToId -> store.deleteRange(afterId, upToId)
+                        .flatMap(rows -> {
+                            job.chunkDeleted(rows, upToId);
+                            deletedRows.increment(rows);
+                            chunks.increment();
+                            queryCache.invalidate();
+                            return Mono.delay(pause(rows)).thenReturn(upToId);
+                        }));
+    }
+
+    private Duration pause(long rows) {
+        return rowsPerSecond > 0
+                ? Duration.ofNanos((long) (rows * 1_000_000_000L / rowsPerSecond))
+                : Duration.ZERO;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.springr2dbc.service;
+
+import com.example.springr2dbc.warmup.Warmup;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches complete query results keyed by query type, parameters and the
+ * catalog generation. Every write bumps the generation, so earlier entries
+ * are never read again and simply age out. Concurrent misses for the same
+ * key share one database query.
+ * <p>
+ * The cache is bounded by the number of rows it holds rather than entries,
+ * since a title search can match any number of books. Results larger than
+ * the per-entry limit are handed to their callers but not kept. Warm-up
+ * requests always load and never touch the cache.
+ * <p>
+ * The shared load runs detached from any one caller's context, bounded by
+ * its own timeout, and is cancelled once every caller waiting on it has
+ * cancelled.
+ * <p>
+ * The generation is held in memory, so a write only invalidates entries on
+ * the instance that served it. Other instances keep serving their entries
+ * until the TTL expires, which bounds how stale a read can be.
+ */
+@Component
+public class BookQueryCache {
+
+    private final boolean enabled;
+    private final Duration loadTimeout;
+    private final long maxEntryRows;
+    private final AtomicLong generation = new AtomicLong();
+    private final AsyncCache<Key, Object> cache;
+
+    public BookQueryCache(MeterRegistry meterRegistry,
+                          @Value("${book.query-cache.enabled:true}") boolean enabled,
+                          @Value("${book.query-cache.max-rows:50000}") long maxRows,
+                          @Value("${book.query-cache.max-entry-rows:1000}") long maxEntryRows,
+                          @Value("${book.query-cache.ttl:30s}") Duration ttl,
+                          @Value("${book.query-cache.load-timeout:2s}") Duration loadTimeout) {
+        this.enabled = enabled;
+        this.loadTimeout = loadTimeout;
+        this.maxEntryRows = maxEntryRows;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Key key, Object value) -> rows(value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "bookQueries");
+        Gauge.builder("book.catalog.generation", generation, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String query, List<Object> parameters, Supplier<Mono<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        return Mono.deferContextual(context -> {
+            if (Warmup.isActive(context)) {
+                return loader.get();
+            }
+
+            Key key = new Key(generation.get(), query, parameters);
+            SharedLoad load = (SharedLoad) cache.get(key, (k, executor) -> new SharedLoad(loader.get().timeout(loadTimeout)));
+            if (!load.retain()) {
+                // Lost the race with the last caller cancelling it; start over
+                cache.asMap().remove(key, load);
+                return get(query, parameters, loader);
+            }
+            load.thenAccept(value -> {
+                if (rows(value) > maxEntryRows) {
+                    cache.asMap().remove(key, load);
+                }
+            });
+            return Mono.fromFuture(load, true)
+                    .doOnCancel(load::release)
+                    .map(value -> (T) value);
+        });
+    }
+
+    /**
+     * Called after every catalog write.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Drops every entry, for tests that share an application context.
+     */
+    void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Page<?> page) {
+            return Math.max(1, page.getNumberOfElements());
+        }
+        return 1;
+    }
+
+    private record Key(long generation, String query, List<Object> parameters) {
+    }
+
+    /**
+     * A load shared by every caller that missed on the same key. Callers are
+     * counted so the query is cancelled when the last one goes away; a
+     * cancelled load completes exceptionally and Caffeine drops it.
+     */
+    private static final class SharedLoad extends CompletableFuture<Object> {
+
+        private final AtomicInteger callers = new AtomicInteger();
+        private final Disposable subscription;
+
+        private SharedLoad(Mono<?> source) {
+            this.subscription = source.subscribe(this::complete, this::completeExceptionally, () -> complete(null));
+        }
+
+        private boolean retain() {
+            while (true) {
+                int count = callers.get();
+                if (count < 0) {
+                    return false;
+                }
+                if (callers.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            if (callers.decrementAndGet() == 0 && !isDone() && callers.compareAndSet(0, -1)) {
+                subscription.dispose();
+                cancel(false);
+            }
+        }
+    }
+}
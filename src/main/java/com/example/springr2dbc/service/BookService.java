@@ -1,144 +1,197 @@
 package com.example.springr2dbc.service;
 
+import com.example.springr2dbc.deadline.Deadline;
+import com.example.springr2dbc.deadline.DeadlineExceededException;
+import com.example.springr2dbc.dto.BookFields;
 import com.example.springr2dbc.model.Book;
-import com.example.springr2dbc.repository.BookRepository;
+import com.example.springr2dbc.repository.BookStore;
+import com.example.springr2dbc.warmup.Warmup;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import reactor.core.observability.micrometer.Micrometer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
 import java.util.List;
 
 @Service
 public class BookService {
 
-    private final BookRepository repository;
+    // One span per service call, tagged with the method name
+    private static final String OBSERVATION_NAME = "book.service";
+    // Warm-up requests run the same operators against registries that record nothing
+    private static final MeterRegistry WARMUP_METERS = new CompositeMeterRegistry();
+
+    private final BookStore store;
     private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final ReadHedger hedger;
+    private final BookQueryCache queryCache;
 
     @Autowired
-    public BookService(BookRepository repository, MeterRegistry meterRegistry) {
-        this.repository = repository;
+    public BookService(BookStore store, MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                       ReadHedger hedger, BookQueryCache queryCache) {
+        this.store = store;
         this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.hedger = hedger;
+        this.queryCache = queryCache;
     }
 
     @Retry(name = "bookService")
     @TimeLimiter(name = "bookService", fallbackMethod = "fallbackGetAllBooks")
     @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackGetAllBooks")
-    public Mono<Page<Book>> getAllBooks(Pageable pageable) {
+    public Mono<Page<Book>> getAllBooks(Pageable pageable, BookFields fields) {
         int limit = pageable.getPageSize();
         int offset = pageable.getPageNumber() * limit;
 
-        Timer.Sample sample = Timer.start(meterRegistry);
-        Mono<Long> totalCount = repository.countAll();
-        Flux<Book> books = repository.findAllPaged(limit, offset);
-
-        return books.collectList()
-                .zipWith(totalCount, (content, total) ->
-                        (Page<Book>) new PageImpl<>(content, pageable, total)
-                )
-                .doOnSubscribe(s -> meterRegistry.counter("book.getAllBooks.calls").increment())
-                .doOnError(e -> meterRegistry.counter("book.getAllBooks.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.getAllBooks.duration")));
+        return Mono.deferContextual(context -> {
+            MeterRegistry meters = meters(context);
+            Timer.Sample sample = Timer.start(meters);
+
+            return Deadline.enforce(queryCache.get("page", List.of(pageable, fields), () -> hedger.hedge(() -> {
+                        Mono<Long> totalCount = store.count();
+                        Flux<Book> books = store.findPage(limit, offset, fields);
+
+                        return books.collectList()
+                                .zipWith(totalCount, (content, total) ->
+                                        (Page<Book>) new PageImpl<>(content, pageable, total)
+                                );
+                    })))
+                    .doOnSubscribe(s -> meters.counter("book.getAllBooks.calls").increment())
+                    .doOnError(e -> meters.counter("book.getAllBooks.errors").increment())
+                    .doFinally(signal -> sample.stop(meters.timer("book.getAllBooks.duration")))
+                    .name(OBSERVATION_NAME).tag("method", "getAllBooks")
+                    .tap(Micrometer.observation(observations(context)));
+        });
     }
 
     @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackFindByTitleContains")
-    public Flux<Book> findByTitleContains(String title) {
-        Timer.Sample sample = Timer.start(meterRegistry);
-
-        return repository.findByTitleContains(title)
-                .doOnSubscribe(s -> meterRegistry.counter("book.findByTitle.calls").increment())
-                .doOnError(e -> meterRegistry.counter("book.findByTitle.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.findByTitle.duration")));
+    public Flux<Book> findByTitleContains(String title, BookFields fields) {
+        return Flux.deferContextual(context -> {
+            MeterRegistry meters = meters(context);
+            Timer.Sample sample = Timer.start(meters);
+
+            return Deadline.enforce(queryCache.get("search", List.of(title, fields),
+                            () -> store.findByTitleContains(title, fields).collectList()))
+                    .flatMapIterable(books -> books)
+                    .doOnSubscribe(s -> meters.counter("book.findByTitle.calls").increment())
+                    .doOnError(e -> meters.counter("book.findByTitle.errors").increment())
+                    .doFinally(signal -> sample.stop(meters.timer("book.findByTitle.duration")))
+                    .name(OBSERVATION_NAME).tag("method", "findByTitleContains")
+                    .tap(Micrometer.observation(observations(context)));
+        });
     }
 
     @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackGetBookById")
-    public Mono<Book> getBookById(int id) {
-        Timer.Sample sample = Timer.start(meterRegistry);
-
-        return repository.findById(id)
-                .doOnSubscribe(s -> meterRegistry.counter("book.getBookById.calls").increment())
-                .doOnError(e -> meterRegistry.counter("book.getBookById.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.getBookById.duration")));
+    public Mono<Book> getBookById(int id, BookFields fields) {
+        return Mono.deferContextual(context -> {
+            MeterRegistry meters = meters(context);
+            Timer.Sample sample = Timer.start(meters);
+
+            return Deadline.enforce(hedger.hedge(() -> store.findById(id, fields)))
+                    .doOnSubscribe(s -> meters.counter("book.getBookById.calls").increment())
+                    .doOnError(e -> meters.counter("book.getBookById.errors").increment())
+                    .doFinally(signal -> sample.stop(meters.timer("book.getBookById.duration")))
+                    .name(OBSERVATION_NAME).tag("method", "getBookById")
+                    .tap(Micrometer.observation(observations(context)));
+        });
     }
 
     @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackSaveBook")
     public Mono<Book> saveBook(Book book) {
         Timer.Sample sample = Timer.start(meterRegistry);
 
-        return repository.save(book)
+        return invalidating(Deadline.enforce(store.save(book)))
                 .doOnSubscribe(s -> meterRegistry.counter("book.saveBook.calls").increment())
                 .doOnError(e -> meterRegistry.counter("book.saveBook.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.saveBook.duration")));
+                .doFinally(signal -> sample.stop(meterRegistry.timer("book.saveBook.duration")))
+                .name(OBSERVATION_NAME).tag("method", "saveBook")
+                .tap(Micrometer.observation(observationRegistry));
     }
 
     @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackUpdateBook")
     public Mono<Book> updateBook(int id, Book book) {
         Timer.Sample sample = Timer.start(meterRegistry);
 
-        return repository.findById(id)
-                .flatMap(existingBook -> {
-                    existingBook.setTitle(book.getTitle());
-                    existingBook.setDescription(book.getDescription());
-                    return repository.save(existingBook);
-                })
+        return invalidating(Deadline.enforce(store.findById(id, BookFields.ALL)
+                        .flatMap(existingBook -> {
+                            existingBook.setTitle(book.getTitle());
+                            existingBook.setDescription(book.getDescription());
+                            return store.save(existingBook);
+                        })))
                 .doOnSubscribe(s -> meterRegistry.counter("book.updateBook.calls").increment())
                 .doOnError(e -> meterRegistry.counter("book.updateBook.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.updateBook.duration")));
+                .doFinally(signal -> sample.stop(meterRegistry.timer("book.updateBook.duration")))
+                .name(OBSERVATION_NAME).tag("method", "updateBook")
+                .tap(Micrometer.observation(observationRegistry));
     }
 
     @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackDeleteById")
     public Mono<Void> deleteById(int id) {
         Timer.Sample sample = Timer.start(meterRegistry);
 
-        return repository.deleteById(id)
+        return invalidating(Deadline.enforce(store.deleteById(id)))
                 .doOnSubscribe(s -> meterRegistry.counter("book.deleteById.calls").increment())
                 .doOnError(e -> meterRegistry.counter("book.deleteById.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.deleteById.duration")));
+                .doFinally(signal -> sample.stop(meterRegistry.timer("book.deleteById.duration")))
+                .name(OBSERVATION_NAME).tag("method", "deleteById")
+                .tap(Micrometer.observation(observationRegistry));
     }
 
-    @CircuitBreaker(name = "bookService", fallbackMethod = "fallbackDeleteAll")
-    public Mono<Void> deleteAll() {
-        Timer.Sample sample = Timer.start(meterRegistry);
+    private MeterRegistry meters(ContextView context) {
+        return Warmup.isActive(context) ? WARMUP_METERS : meterRegistry;
+    }
+
+    private ObservationRegistry observations(ContextView context) {
+        return Warmup.isActive(context) ? ObservationRegistry.NOOP : observationRegistry;
+    }
 
-        return repository.deleteAll()
-                .doOnSubscribe(s -> meterRegistry.counter("book.deleteAll.calls").increment())
-                .doOnError(e -> meterRegistry.counter("book.deleteAll.errors").increment())
-                .doFinally(signal -> sample.stop(meterRegistry.timer("book.deleteAll.duration")));
+    private <T> Mono<T> invalidating(Mono<T> write) {
+        // Bump the catalog generation before completion reaches the caller,
+        // and also on cancel since the statement may still have been applied
+        return write
+                .doOnTerminate(queryCache::invalidate)
+                .doOnCancel(queryCache::invalidate);
     }
 
-    private Flux<Book> fallbackGetAllBooks(Throwable t) {
-        return Flux.empty(); // return empty Flux on failure
+    private Mono<Page<Book>> fallbackGetAllBooks(Pageable pageable, BookFields fields, Throwable t) {
+        return emptyUnlessDeadline(t); // return empty Mono on failure, except for an expired deadline
     }
 
-    private Flux<Book> fallbackFindByTitleContains(String title, Throwable t) {
-        return Flux.empty();
+    private Flux<Book> fallbackFindByTitleContains(String title, BookFields fields, Throwable t) {
+        return Flux.from(emptyUnlessDeadline(t));
     }
 
-    private Mono<Book> fallbackGetBookById(int id, Throwable t) {
-        return Mono.empty();
+    private Mono<Book> fallbackGetBookById(int id, BookFields fields, Throwable t) {
+        return emptyUnlessDeadline(t);
     }
 
     private Mono<Book> fallbackSaveBook(Book book, Throwable t) {
-        return Mono.empty();
+        return emptyUnlessDeadline(t);
     }
 
     private Mono<Book> fallbackUpdateBook(int id, Book book, Throwable t) {
-        return Mono.empty();
+        return emptyUnlessDeadline(t);
     }
 
     private Mono<Void> fallbackDeleteById(int id, Throwable t) {
-        return Mono.empty();
+        return emptyUnlessDeadline(t);
     }
 
-    private Mono<Void> fallbackDeleteAll(Throwable t) {
-        return Mono.empty();
+    private static <T> Mono<T> emptyUnlessDeadline(Throwable t) {
+        // An expired client deadline is not a service failure and must surface as 504
+        return t instanceof DeadlineExceededException ? Mono.error(t) : Mono.empty();
     }
 }
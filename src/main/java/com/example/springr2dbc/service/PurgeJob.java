@@ -0,0 +1,71 @@
+package com.example.springr2dbc.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one background purge of the books table.
+ */
+@Getter
+public class PurgeJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final boolean truncate;
+    private final Instant startedAt = Instant.now();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong deletedRows = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong chunks = new AtomicLong();
+    private volatile long totalRows = -1;
+    private volatile Integer lastDeletedId;
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public PurgeJob(String id, boolean truncate) {
+        this.id = id;
+        this.truncate = truncate;
+    }
+
+    public long getDeletedRows() {
+        return deletedRows.get();
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    void started(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    void chunkDeleted(long rows, int upToId) {
+        deletedRows.addAndGet(rows);
+        chunks.incrementAndGet();
+        lastDeletedId = upToId;
+    }
+
+    void truncated() {
+        deletedRows.set(Math.max(totalRows, 0));
+    }
+
+    void completed() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void failed(Throwable t) {
+        error = t.getMessage();
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+}
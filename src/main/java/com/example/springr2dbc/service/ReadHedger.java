@@ -0,0 +1,166 @@
+package com.example.springr2dbc.service;
+
+import com.example.springr2dbc.warmup.Warmup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent reads: when the first attempt has not completed after the
+ * observed p95 latency a second attempt is issued on another pooled connection.
+ * The first attempt to answer wins, an empty result counting as an answer, and
+ * the other attempt is cancelled. A failed attempt does not win: the request
+ * only fails once every issued attempt has failed, and a primary that fails
+ * before the hedge delay fails the request without hedging.
+ * <p>
+ * Each request deposits {@code budget-ratio} of a token and each hedge spends a
+ * whole one, so hedges stay a bounded fraction of the read load.
+ * <p>
+ * Every attempt is timed, including the one that loses: a cancelled attempt
+ * records how long it had been running, so slow primaries keep pulling the
+ * p95 up instead of disappearing from the estimate. Warm-up requests run
+ * unhedged and untimed, so they neither spend the budget nor skew the p95.
+ */
+@Component
+public class ReadHedger {
+
+    private static final long TOKEN = 1000;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final long tokensPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens = new AtomicLong();
+    private final Timer attemptLatency;
+    private final Counter hedgesIssued;
+    private final Counter hedgesWon;
+
+    private volatile Duration delay;
+    private volatile long delayRefreshedAt;
+
+    public ReadHedger(MeterRegistry meterRegistry,
+                      @Value("${book.hedging.enabled:false}") boolean enabled,
+                      @Value("${book.hedging.min-delay:5ms}") Duration minDelay,
+                      @Value("${book.hedging.max-delay:500ms}") Duration maxDelay,
+                      @Value("${book.hedging.budget-ratio:0.05}") double budgetRatio,
+                      @Value("${book.hedging.max-burst:10}") int maxBurst) {
+        this.enabled = enabled;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.tokensPerRequest = Math.round(budgetRatio * TOKEN);
+        this.maxTokens = maxBurst * TOKEN;
+        this.delay = minDelay;
+        this.delayRefreshedAt = System.nanoTime();
+        this.attemptLatency = Timer.builder("book.hedging.attempt.duration")
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+        this.hedgesIssued = meterRegistry.counter("book.hedging.issued");
+        this.hedgesWon = meterRegistry.counter("book.hedging.won");
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> attempt) {
+        if (!enabled) {
+            return attempt.get();
+        }
+
+        return Mono.deferContextual(context -> {
+            if (Warmup.isActive(context)) {
+                return attempt.get();
+            }
+
+            deposit();
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+
+            Mono<Optional<T>> primary = answer(timed(attempt.get()))
+                    .doOnError(e -> primaryFailed.tryEmitValue(true));
+            Mono<Optional<T>> backup = Mono.delay(hedgeDelay())
+                    .takeUntilOther(primaryFailed.asMono())
+                    .flatMap(tick -> {
+                        if (!tryAcquire()) {
+                            return Mono.empty();
+                        }
+                        hedgesIssued.increment();
+                        return answer(timed(attempt.get()))
+                                .doOnNext(value -> value.ifPresent(v -> hedgesWon.increment()));
+                    });
+
+            // Errors are held back until both attempts are done, so a failure never beats an answer
+            return Flux.mergeDelayError(1, primary, backup)
+                    .next()
+                    .onErrorMap(Exceptions::isMultiple, ReadHedger::firstFailure)
+                    .flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    private static <T> Mono<Optional<T>> answer(Mono<T> attempt) {
+        return attempt.map(Optional::of).defaultIfEmpty(Optional.empty());
+    }
+
+    private static Throwable firstFailure(Throwable multiple) {
+        List<Throwable> failures = Exceptions.unwrapMultiple(multiple);
+        Throwable first = failures.get(0);
+        failures.subList(1, failures.size()).forEach(first::addSuppressed);
+        return first;
+    }
+
+    private <T> Mono<T> timed(Mono<T> attempt) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return attempt.doFinally(signal ->
+                    attemptLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Duration hedgeDelay() {
+        long now = System.nanoTime();
+        if (now - delayRefreshedAt < DELAY_REFRESH_NANOS) {
+            return delay;
+        }
+
+        double p95 = 0;
+        for (ValueAtPercentile percentile : attemptLatency.takeSnapshot().percentileValues()) {
+            p95 = percentile.value(TimeUnit.NANOSECONDS);
+        }
+        Duration observed = Duration.ofNanos((long) p95);
+        if (observed.compareTo(minDelay) < 0) {
+            observed = minDelay;
+        } else if (observed.compareTo(maxDelay) > 0) {
+            observed = maxDelay;
+        }
+
+        delay = observed;
+        delayRefreshedAt = now;
+        return observed;
+    }
+
+    private void deposit() {
+        tokens.getAndUpdate(current -> Math.min(maxTokens, current + tokensPerRequest));
+    }
+
+    private boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
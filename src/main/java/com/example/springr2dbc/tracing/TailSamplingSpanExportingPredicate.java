@@ -0,0 +1,71 @@
+package com.example.springr2dbc.tracing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanExportingPredicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Tail sampling over head-sampled traces. A span is exported when it is slower
+ * than the latency threshold or failed; its trace is then remembered so every
+ * span of that trace finishing afterwards (its ancestors up to the HTTP
+ * exchange) is exported too. Spans of traces that stay fast and successful are
+ * dropped, as are fast children that finished before the trace became
+ * interesting.
+ */
+@Component
+@ConditionalOnProperty(name = "tracing.tail-sampling.enabled", havingValue = "true")
+public class TailSamplingSpanExportingPredicate implements SpanExportingPredicate {
+
+    private final Duration latencyThreshold;
+    private final Cache<String, Boolean> keptTraces;
+    private final Counter kept;
+    private final Counter dropped;
+
+    public TailSamplingSpanExportingPredicate(MeterRegistry meterRegistry,
+                                              @Value("${tracing.tail-sampling.latency-threshold:500ms}") Duration latencyThreshold,
+                                              @Value("${tracing.tail-sampling.max-traces:10000}") long maxTraces,
+                                              @Value("${tracing.tail-sampling.trace-ttl:1m}") Duration traceTtl) {
+        this.latencyThreshold = latencyThreshold;
+        this.keptTraces = Caffeine.newBuilder()
+                .maximumSize(maxTraces)
+                .expireAfterWrite(traceTtl)
+                .build();
+        this.kept = meterRegistry.counter("tracing.tail-sampling.spans", "decision", "kept");
+        this.dropped = meterRegistry.counter("tracing.tail-sampling.spans", "decision", "dropped");
+    }
+
+    @Override
+    public boolean isExportable(FinishedSpan span) {
+        if (isSlow(span) || isFailed(span)) {
+            keptTraces.put(span.getTraceId(), Boolean.TRUE);
+            kept.increment();
+            return true;
+        }
+        if (keptTraces.getIfPresent(span.getTraceId()) != null) {
+            kept.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private boolean isSlow(FinishedSpan span) {
+        return Duration.between(span.getStartTimestamp(), span.getEndTimestamp()).compareTo(latencyThreshold) >= 0;
+    }
+
+    private static boolean isFailed(FinishedSpan span) {
+        Map<String, String> tags = span.getTags();
+        return span.getError() != null
+                || tags.containsKey("error")
+                || "SERVER_ERROR".equals(tags.get("outcome"));
+    }
+}
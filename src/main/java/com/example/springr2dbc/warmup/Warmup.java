@@ -0,0 +1,28 @@
+package com.example.springr2dbc.warmup;
+
+import org.springframework.web.server.ServerWebExchange;
+import reactor.util.context.ContextView;
+
+/**
+ * Marks the requests sent by the {@link WarmupRunner}. They take the full
+ * request path, but the layers that keep state about live traffic, namely
+ * the {@code book.*} metrics, the query cache, the read hedger and the rate
+ * limiter, leave them out.
+ */
+public final class Warmup {
+
+    public static final String HEADER = "X-Warmup";
+
+    static final String ATTRIBUTE = Warmup.class.getName();
+
+    private Warmup() {
+    }
+
+    public static boolean isActive(ContextView context) {
+        return context.hasKey(Warmup.class);
+    }
+
+    public static boolean isActive(ServerWebExchange exchange) {
+        return exchange.getAttributes().containsKey(ATTRIBUTE);
+    }
+}
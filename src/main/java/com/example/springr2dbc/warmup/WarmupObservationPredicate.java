@@ -0,0 +1,26 @@
+package com.example.springr2dbc.warmup;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationPredicate;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps warm-up requests out of {@code http.server.requests} and the traces.
+ * The server observation starts before any web filter runs, so the request
+ * header is checked here rather than the exchange attribute.
+ */
+@Component
+public class WarmupObservationPredicate implements ObservationPredicate {
+
+    private final WarmupWebFilter warmupWebFilter;
+
+    public WarmupObservationPredicate(WarmupWebFilter warmupWebFilter) {
+        this.warmupWebFilter = warmupWebFilter;
+    }
+
+    @Override
+    public boolean test(String name, Observation.Context context) {
+        return !(context instanceof ServerRequestObservationContext server && warmupWebFilter.isWarmup(server.getCarrier()));
+    }
+}
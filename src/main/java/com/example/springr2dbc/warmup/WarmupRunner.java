@@ -0,0 +1,200 @@
+package com.example.springr2dbc.warmup;
+
+import com.example.springr2dbc.health.WarmupHealthIndicator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Sends read-only synthetic requests to this instance's own HTTP port after
+ * startup, in batches, until consecutive batch timings differ by less than
+ * the stability threshold (or the batch/duration limits are hit). The
+ * requests take the real path through the web filters, controller, Jackson,
+ * {@code BookService} and the store; they carry the {@link Warmup} marker so
+ * live-traffic state (rate limits, {@code book.*} metrics, the query cache
+ * and the hedger) is left alone. Keys vary per iteration so every call
+ * reaches the database.
+ * <p>
+ * The {@link WarmupHealthIndicator} keeps readiness down until then. A
+ * failed warm-up is retried with backoff; once the retries run out it is
+ * abandoned and readiness goes UP regardless.
+ */
+@Component
+public class WarmupRunner {
+
+    private static final List<String> SEARCH_TERMS = List.of("a", "e", "the", "book");
+    private static final String TITLE_ONLY = "id,title";
+
+    private final WarmupWebFilter warmupWebFilter;
+    private final WarmupHealthIndicator healthIndicator;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int minBatches;
+    private final int maxBatches;
+    private final Duration maxDuration;
+    private final double stabilityThreshold;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Timer duration;
+    private final Timer batchDuration;
+    private final Counter batches;
+    private final Counter retries;
+
+    public WarmupRunner(WarmupWebFilter warmupWebFilter,
+                        WarmupHealthIndicator healthIndicator,
+                        MeterRegistry meterRegistry,
+                        @Value("${warmup.enabled:true}") boolean enabled,
+                        @Value("${warmup.batch-size:200}") int batchSize,
+                        @Value("${warmup.min-batches:3}") int minBatches,
+                        @Value("${warmup.max-batches:50}") int maxBatches,
+                        @Value("${warmup.max-duration:60s}") Duration maxDuration,
+                        @Value("${warmup.stability-threshold:0.1}") double stabilityThreshold,
+                        @Value("${warmup.max-retries:3}") int maxRetries,
+                        @Value("${warmup.retry-backoff:1s}") Duration retryBackoff) {
+        this.warmupWebFilter = warmupWebFilter;
+        this.healthIndicator = healthIndicator;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.minBatches = minBatches;
+        this.maxBatches = maxBatches;
+        this.maxDuration = maxDuration;
+        this.stabilityThreshold = stabilityThreshold;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.duration = meterRegistry.timer("warmup.duration");
+        this.batchDuration = meterRegistry.timer("warmup.batch.duration");
+        this.batches = meterRegistry.counter("warmup.batches");
+        this.retries = meterRegistry.counter("warmup.retries");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(ApplicationReadyEvent event) {
+        // Own pool, closed afterwards, so no warm-up connection outlives the warm-up
+        ConnectionProvider connections = ConnectionProvider.create("warmup");
+        run(localClient(event.getApplicationContext(), connections))
+                .doFinally(signal -> connections.dispose())
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    /**
+     * Runs the warm-up against {@code client}, which must send the
+     * {@link Warmup#HEADER} token. A {@code null} client means there is no
+     * server to warm up, e.g. in a mock web environment.
+     */
+    public Mono<Void> run(WebClient client) {
+        if (!enabled || client == null) {
+            return Mono.fromRunnable(() -> healthIndicator.complete(0, Duration.ZERO));
+        }
+
+        return attempt(client)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .doBeforeRetry(signal -> retries.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorResume(e -> Mono.fromRunnable(() -> healthIndicator.abandon(e)))
+                .then();
+    }
+
+    private WebClient localClient(ApplicationContext context, ConnectionProvider connections) {
+        if (!(context instanceof ReactiveWebServerApplicationContext server) || server.getWebServer() == null) {
+            return null;
+        }
+        // A plain builder, so warm-up calls stay out of the http.client.requests metrics
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .baseUrl("http://localhost:" + server.getWebServer().getPort())
+                .defaultHeader(Warmup.HEADER, warmupWebFilter.token())
+                .build();
+    }
+
+    private Mono<Long> attempt(WebClient client) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong previousNanos = new AtomicLong(-1);
+
+            return Flux.range(1, maxBatches)
+                    .concatMap(batch -> timedBatch(client, batch).map(nanos -> isStable(batch, previousNanos.getAndSet(nanos), nanos)))
+                    .takeUntil(stable -> stable)
+                    .take(maxDuration)
+                    .count()
+                    .doOnNext(count -> {
+                        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                        duration.record(elapsed);
+                        healthIndicator.complete(count, elapsed);
+                    });
+        });
+    }
+
+    private Mono<Long> timedBatch(WebClient client, int batch) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            // Iterations are numbered across batches so later batches use new keys
+            return Flux.range((batch - 1) * batchSize, batchSize)
+                    .concatMap(i -> iteration(client, i))
+                    .then(Mono.fromSupplier(() -> System.nanoTime() - start))
+                    .doOnNext(nanos -> {
+                        batches.increment();
+                        batchDuration.record(Duration.ofNanos(nanos));
+                    });
+        });
+    }
+
+    private boolean isStable(int batch, long previousNanos, long nanos) {
+        if (batch < minBatches || previousNanos <= 0) {
+            return false;
+        }
+        return Math.abs(nanos - previousNanos) <= previousNanos * stabilityThreshold;
+    }
+
+    private Mono<Void> iteration(WebClient client, int i) {
+        Optional<String> fields = i % 2 == 0 ? Optional.empty() : Optional.of(TITLE_ONLY);
+
+        Mono<Void> page = get(client, uri -> uri.path("/api/v1/books")
+                .queryParam("page", i % 50)
+                .queryParam("size", 20)
+                .queryParamIfPresent("fields", fields)
+                .build());
+        Mono<Void> search = get(client, uri -> uri.path("/api/v1/books/search")
+                .queryParam("title", SEARCH_TERMS.get(i % SEARCH_TERMS.size()))
+                .queryParamIfPresent("fields", fields)
+                .build());
+        Mono<Void> byId = get(client, uri -> uri.path("/api/v1/books/{id}")
+                .queryParamIfPresent("fields", fields)
+                .build(i + 1));
+
+        // Any failure ends this attempt; the run is retried from the first batch
+        return Mono.when(page, search, byId);
+    }
+
+    private static Mono<Void> get(WebClient client, Function<UriBuilder, URI> uri) {
+        return client.get()
+                .uri(uri)
+                .retrieve()
+                // Ids past the end of the catalog are expected
+                .onStatus(status -> status.value() == 404, response -> Mono.empty())
+                .toBodilessEntity()
+                .then();
+    }
+}
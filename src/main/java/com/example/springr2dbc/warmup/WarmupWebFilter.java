@@ -0,0 +1,48 @@
+package com.example.springr2dbc.warmup;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+/**
+ * Recognizes warm-up requests by a {@value Warmup#HEADER} header carrying
+ * this instance's random token, and marks them in the exchange attributes
+ * and the Reactor context. Callers that do not know the token cannot opt out
+ * of rate limiting or metrics.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WarmupWebFilter implements WebFilter {
+
+    private final String token = UUID.randomUUID().toString();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!isWarmup(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+
+        exchange.getAttributes().put(Warmup.ATTRIBUTE, Boolean.TRUE);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(Warmup.class, Boolean.TRUE));
+    }
+
+    public boolean isWarmup(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(Warmup.HEADER);
+        return header != null && MessageDigest.isEqual(
+                header.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    String token() {
+        return token;
+    }
+}
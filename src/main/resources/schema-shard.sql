@@ -0,0 +1,7 @@
+CREATE SEQUENCE IF NOT EXISTS book_id_seq;
+
+CREATE TABLE IF NOT EXISTS books (
+    id INT PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    description VARCHAR(255)
+);
@@ -0,0 +1,66 @@
+package com.example.springr2dbc.config;
+
+import com.example.springr2dbc.deadline.DeadlineConnectionFactory;
+import com.example.springr2dbc.health.ShardsHealthContributor;
+import com.example.springr2dbc.model.Book;
+import com.example.springr2dbc.repository.sharding.ShardedBookStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardingConfigTest {
+
+    private final String run = UUID.randomUUID().toString();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            // Boot's conversion service splits the comma-separated url list, as in the application
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(ShardingConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "book.sharding.enabled=true",
+                    "book.sharding.urls=r2dbc:h2:mem:///cfg0-" + run + "?options=DB_CLOSE_DELAY=-1,"
+                            + "r2dbc:h2:mem:///cfg1-" + run + "?options=DB_CLOSE_DELAY=-1");
+
+    @Test
+    void shouldInitializeSchemaOnEveryShard() {
+        contextRunner.run(context -> {
+            ShardedBookStore store = context.getBean(ShardedBookStore.class);
+
+            StepVerifier.create(store.save(new Book("A", "Desc A")).then(store.save(new Book("B", "Desc B"))).then(store.count()))
+                    .expectNext(2L)
+                    .verifyComplete();
+        });
+    }
+
+    @Test
+    void shouldApplyStatementTimeoutToShards() {
+        contextRunner.run(context -> assertThat(context.getBean(ShardingConfig.ShardConnectionFactories.class).connectionFactories())
+                .hasSize(2)
+                .allMatch(DeadlineConnectionFactory.class::isInstance));
+    }
+
+    @Test
+    void shouldProbeEveryShard() {
+        contextRunner.run(context -> {
+            ShardsHealthContributor shards = context.getBean(ShardsHealthContributor.class);
+
+            StepVerifier.create(shards.probe()).verifyComplete();
+
+            for (String name : new String[]{"shard0", "shard1"}) {
+                StepVerifier.create(((ReactiveHealthIndicator) shards.getContributor(name)).health())
+                        .expectNextMatches(health -> health.getStatus().equals(Status.UP))
+                        .verifyComplete();
+            }
+        });
+    }
+}
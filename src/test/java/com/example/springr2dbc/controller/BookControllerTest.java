@@ -2,10 +2,15 @@ package com.example.springr2dbc.controller;
 
 
 import com.example.springr2dbc.config.WebConfig;
+import com.example.springr2dbc.dto.BookFields;
 import com.example.springr2dbc.dto.BookRequest;
 import com.example.springr2dbc.dto.BookResponse;
+import com.example.springr2dbc.exception.GlobalExceptionHandler;
+import com.example.springr2dbc.exception.PurgeConflictException;
 import com.example.springr2dbc.model.Book;
+import com.example.springr2dbc.service.BookPurgeService;
 import com.example.springr2dbc.service.BookService;
+import com.example.springr2dbc.service.PurgeJob;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -18,15 +23,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 @WebFluxTest(BookController.class)
 @ContextConfiguration(classes = BookController.class)
-@Import(WebConfig.class)
+@Import({WebConfig.class, GlobalExceptionHandler.class})
 class BookControllerTest {
 
     @Autowired
@@ -35,6 +42,9 @@ class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BookPurgeService purgeService;
+
     private Book book1;
     private Book book2;
     private BookResponse response1;
@@ -53,7 +63,7 @@ class BookControllerTest {
         List<Book> books = List.of(book1, book2);
         Page<Book> page = new PageImpl<>(books, pageable, books.size());
 
-        Mockito.when(bookService.getAllBooks(pageable))
+        Mockito.when(bookService.getAllBooks(pageable, BookFields.ALL))
                 .thenReturn(Mono.just(page));
 
         webTestClient.get()
@@ -75,7 +85,7 @@ class BookControllerTest {
     void shouldReturnNoContentWhenNoBooks() {
         Pageable pageable = PageRequest.of(0, 20);
 
-        Mockito.when(bookService.getAllBooks(pageable))
+        Mockito.when(bookService.getAllBooks(pageable, BookFields.ALL))
                 .thenReturn(Mono.empty());
 
         webTestClient.get()
@@ -90,7 +100,7 @@ class BookControllerTest {
 
     @Test
     void shouldReturnBookByIdIfExists() {
-        Mockito.when(bookService.getBookById(1))
+        Mockito.when(bookService.getBookById(1, BookFields.ALL))
                 .thenReturn(Mono.just(book1));
 
         webTestClient.get()
@@ -101,9 +111,22 @@ class BookControllerTest {
                 .isEqualTo(response1);
     }
 
+    @Test
+    void shouldKeepNullFieldsInFullResponse() {
+        Mockito.when(bookService.getBookById(1, BookFields.ALL))
+                .thenReturn(Mono.just(new Book(1, "Book A", null)));
+
+        webTestClient.get()
+                .uri("/api/v1/books/{id}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json("{\"id\": 1, \"title\": \"Book A\", \"description\": null}", JsonCompareMode.STRICT);
+    }
+
     @Test
     void shouldReturn404IfBookNotFound() {
-        Mockito.when(bookService.getBookById(1))
+        Mockito.when(bookService.getBookById(1, BookFields.ALL))
                 .thenReturn(Mono.empty());
 
         webTestClient.get()
@@ -112,6 +135,73 @@ class BookControllerTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void shouldReturnOnlyRequestedFieldsForAllBooks() {
+        Pageable pageable = PageRequest.of(0, 20);
+        BookFields fields = BookFields.parse("id,title");
+        List<Book> books = List.of(new Book(1, "Book A", null), new Book(2, "Book B", null));
+        Page<Book> page = new PageImpl<>(books, pageable, books.size());
+
+        Mockito.when(bookService.getAllBooks(pageable, fields))
+                .thenReturn(Mono.just(page));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/v1/books")
+                        .queryParam("page", 0)
+                        .queryParam("size", 20)
+                        .queryParam("fields", "id,title")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(1)
+                .jsonPath("$.content[0].title").isEqualTo("Book A")
+                .jsonPath("$.content[0].description").doesNotExist();
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFieldsForBookById() {
+        BookFields fields = BookFields.parse("title");
+        Mockito.when(bookService.getBookById(1, fields))
+                .thenReturn(Mono.just(new Book(0, "Book A", null)));
+
+        webTestClient.get()
+                .uri("/api/v1/books/{id}?fields=title", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json("{\"title\": \"Book A\"}", JsonCompareMode.STRICT);
+    }
+
+    @Test
+    void shouldRejectUnknownField() {
+        webTestClient.get()
+                .uri("/api/v1/books/{id}?fields=isbn", 1)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.success").isEqualTo(false)
+                .jsonPath("$.message").isEqualTo("Unknown field: isbn");
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void shouldSearchBooksByTitle() {
+        Mockito.when(bookService.findByTitleContains("Book", BookFields.ALL))
+                .thenReturn(Flux.just(book1, book2));
+
+        webTestClient.get()
+                .uri("/api/v1/books/search?title={title}", "Book")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].description").isEqualTo(book1.getDescription())
+                .jsonPath("$[1].title").isEqualTo(book2.getTitle());
+    }
+
     @Test
     void shouldCreateBook() {
         BookRequest request = new BookRequest("Book A", "Desc A");
@@ -175,13 +265,70 @@ class BookControllerTest {
     }
 
     @Test
-    void shouldDeleteAllBooks() {
-        Mockito.when(bookService.deleteAll())
-                .thenReturn(Mono.empty());
+    void shouldStartPurgeJob() {
+        Mockito.when(purgeService.start(false))
+                .thenReturn(Mono.just(new PurgeJob("job-1", false)));
 
         webTestClient.delete()
                 .uri("/api/v1/books")
                 .exchange()
-                .expectStatus().isNoContent();
+                .expectStatus().isAccepted()
+                .expectHeader().location("/api/v1/books/purges/job-1")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("job-1")
+                .jsonPath("$.status").isEqualTo("RUNNING")
+                .jsonPath("$.mode").isEqualTo("chunked");
+    }
+
+    @Test
+    void shouldStartTruncatePurgeJob() {
+        Mockito.when(purgeService.start(true))
+                .thenReturn(Mono.just(new PurgeJob("job-2", true)));
+
+        webTestClient.delete()
+                .uri("/api/v1/books?truncate=true")
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody()
+                .jsonPath("$.mode").isEqualTo("truncate");
+    }
+
+    @Test
+    void shouldRejectPurgeInOtherModeWhileOneRuns() {
+        Mockito.when(purgeService.start(true))
+                .thenReturn(Mono.error(new PurgeConflictException("job-1", false)));
+
+        webTestClient.delete()
+                .uri("/api/v1/books?truncate=true")
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectHeader().location("/api/v1/books/purges/job-1")
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Purge job-1 is already running with truncate=false");
+    }
+
+    @Test
+    void shouldReturnPurgeJobStatus() {
+        Mockito.when(purgeService.findJob("job-1"))
+                .thenReturn(Mono.just(new PurgeJob("job-1", false)));
+
+        webTestClient.get()
+                .uri("/api/v1/books/purges/job-1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("job-1")
+                .jsonPath("$.deletedRows").isEqualTo(0);
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownPurgeJob() {
+        Mockito.when(purgeService.findJob("missing"))
+                .thenReturn(Mono.empty());
+
+        webTestClient.get()
+                .uri("/api/v1/books/purges/missing")
+                .exchange()
+                .expectStatus().isNotFound();
     }
 }
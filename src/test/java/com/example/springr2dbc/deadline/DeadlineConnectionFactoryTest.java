@@ -0,0 +1,112 @@
+package com.example.springr2dbc.deadline;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DeadlineConnectionFactoryTest {
+
+    private ConnectionFactory delegate;
+    private Connection connection;
+    private DeadlineConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        connectionFactory = new DeadlineConnectionFactory(delegate);
+
+        doAnswer(invocation -> Mono.just(connection)).when(delegate).create();
+        when(connection.setStatementTimeout(any())).thenAnswer(invocation -> Mono.empty());
+        when(connection.close()).thenAnswer(invocation -> Mono.empty());
+    }
+
+    private Duration statementTimeout() {
+        ArgumentCaptor<Duration> timeout = ArgumentCaptor.forClass(Duration.class);
+        verify(connection).setStatementTimeout(timeout.capture());
+        return timeout.getValue();
+    }
+
+    private Mono<Connection> acquire(Duration deadline) {
+        Mono<Connection> connection = Mono.<Connection>from(connectionFactory.create());
+        return deadline == null
+                ? connection
+                : connection.contextWrite(Context.of(Deadline.class, Deadline.after(deadline)));
+    }
+
+    @Test
+    void shouldSetStatementTimeoutToRemainingDeadline() {
+        StepVerifier.create(acquire(Duration.ofSeconds(2)))
+                .expectNext(connection)
+                .verifyComplete();
+
+        assertThat(statementTimeout()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldNotSetStatementTimeoutWithoutDeadline() {
+        StepVerifier.create(acquire(null))
+                .expectNext(connection)
+                .verifyComplete();
+
+        verify(connection, never()).setStatementTimeout(any());
+    }
+
+    @Test
+    void shouldSkipRedundantTimeoutOnSameConnection() {
+        acquire(Duration.ofSeconds(2)).block();
+        acquire(Duration.ofSeconds(2)).block();
+        acquire(Duration.ofMillis(1900)).block();
+
+        assertThat(statementTimeout()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldResetTimeoutWhenDeadlineChanges() {
+        acquire(Duration.ofSeconds(2)).block();
+        acquire(Duration.ofSeconds(5)).block();
+        acquire(null).block();
+        acquire(null).block();
+
+        InOrder inOrder = inOrder(connection);
+        inOrder.verify(connection).setStatementTimeout(Duration.ofSeconds(2));
+        inOrder.verify(connection).setStatementTimeout(Duration.ofSeconds(5));
+        inOrder.verify(connection).setStatementTimeout(Duration.ZERO);
+        verify(connection, times(3)).setStatementTimeout(any());
+    }
+
+    @Test
+    void shouldNotAcquireWhenDeadlineExpired() {
+        StepVerifier.create(acquire(Duration.ZERO))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+
+        verify(delegate, never()).create();
+    }
+
+    @Test
+    void shouldStopSettingTimeoutsWhenUnsupported() {
+        when(connection.setStatementTimeout(any())).thenAnswer(invocation -> Mono.error(new IllegalStateException("unsupported")));
+
+        StepVerifier.create(acquire(Duration.ofSeconds(2)))
+                .expectNext(connection)
+                .verifyComplete();
+        StepVerifier.create(acquire(Duration.ofSeconds(5)))
+                .expectNext(connection)
+                .verifyComplete();
+
+        verify(connection, times(1)).setStatementTimeout(any());
+        verify(connection, never()).close();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.springr2dbc.deadline;
+
+import com.example.springr2dbc.model.Book;
+import com.example.springr2dbc.repository.BookRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "warmup.enabled=false")
+@ActiveProfiles("h2")
+@AutoConfigureWebTestClient
+class DeadlineEndToEndTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @MockitoBean
+    private BookRepository bookRepository;
+
+    @Test
+    void expiredDeadlineShouldReturnGatewayTimeoutWithoutOpeningBreaker() {
+        Mockito.when(bookRepository.findById(1))
+                .thenReturn(Mono.delay(Duration.ofSeconds(5)).thenReturn(new Book(1, "Book A", "Desc A")));
+
+        for (int i = 0; i < 6; i++) {
+            webTestClient.get()
+                    .uri("/api/v1/books/{id}", 1)
+                    .header(DeadlineWebFilter.HEADER, "150ms")
+                    .exchange()
+                    .expectStatus().isEqualTo(504)
+                    .expectBody()
+                    .jsonPath("$.message").isEqualTo("Request deadline exceeded");
+        }
+
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("bookService");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+}
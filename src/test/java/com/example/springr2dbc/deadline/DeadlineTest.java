@@ -0,0 +1,65 @@
+package com.example.springr2dbc.deadline;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineTest {
+
+    @Test
+    void shouldPassThroughWithoutDeadline() {
+        StepVerifier.create(Deadline.enforce(Mono.just("book")))
+                .expectNext("book")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCancelWorkWhenDeadlineExpires() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        StepVerifier.withVirtualTime(() -> Deadline.enforce(Mono.never().doOnCancel(() -> cancelled.set(true)))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofSeconds(1)))))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void shouldFailFastWhenDeadlineAlreadyExpired() {
+        AtomicBoolean subscribed = new AtomicBoolean();
+
+        StepVerifier.create(Deadline.enforce(Mono.just("book").doOnSubscribe(s -> subscribed.set(true)))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ZERO))))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+
+        assertThat(subscribed).isFalse();
+    }
+
+    @Test
+    void shouldBoundWholeStream() {
+        StepVerifier.withVirtualTime(() -> Deadline.enforceMany(Flux.interval(Duration.ofMillis(400)))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofSeconds(1)))))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext(0L, 1L)
+                .expectError(DeadlineExceededException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldKeepErrorsRaisedBeforeExpiry() {
+        StepVerifier.create(Deadline.enforce(Mono.error(new IllegalStateException("boom")))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofSeconds(10)))))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+}
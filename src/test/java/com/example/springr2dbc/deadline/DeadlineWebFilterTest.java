@@ -0,0 +1,83 @@
+package com.example.springr2dbc.deadline;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineWebFilterTest {
+
+    private final DeadlineWebFilter filter =
+            new DeadlineWebFilter(Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofMillis(100), Duration.ofSeconds(30));
+
+    private Deadline filter(MockServerHttpRequest request) {
+        AtomicReference<Deadline> captured = new AtomicReference<>();
+        WebFilterChain chain = exchange -> Mono.deferContextual(context -> {
+            Deadline.from(context).ifPresent(captured::set);
+            return Mono.empty();
+        });
+
+        StepVerifier.create(filter.filter(MockServerWebExchange.from(request), chain))
+                .verifyComplete();
+        return captured.get();
+    }
+
+    @Test
+    void shouldUseRouteDefaultWithoutHeader() {
+        Deadline read = filter(MockServerHttpRequest.get("/api/v1/books").build());
+        Deadline write = filter(MockServerHttpRequest.post("/api/v1/books").build());
+
+        assertThat(read.remaining()).isBetween(Duration.ofSeconds(1), Duration.ofSeconds(2));
+        assertThat(write.remaining()).isBetween(Duration.ofSeconds(4), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldUseClientTimeoutHeader() {
+        Deadline deadline = filter(MockServerHttpRequest.get("/api/v1/books")
+                .header(DeadlineWebFilter.HEADER, "250")
+                .build());
+
+        assertThat(deadline.remaining()).isLessThanOrEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void shouldCapClientTimeoutHeader() {
+        Deadline deadline = filter(MockServerHttpRequest.get("/api/v1/books")
+                .header(DeadlineWebFilter.HEADER, "10m")
+                .build());
+
+        assertThat(deadline.remaining()).isLessThanOrEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void shouldRaiseTinyClientTimeoutToMinimum() {
+        Deadline deadline = filter(MockServerHttpRequest.get("/api/v1/books")
+                .header(DeadlineWebFilter.HEADER, "1")
+                .build());
+
+        assertThat(deadline.remaining()).isBetween(Duration.ofMillis(50), Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldIgnoreZeroAndNegativeClientTimeouts() {
+        for (String value : new String[]{"0", "-5", "-1s"}) {
+            Deadline deadline = filter(MockServerHttpRequest.get("/api/v1/books")
+                    .header(DeadlineWebFilter.HEADER, value)
+                    .build());
+
+            assertThat(deadline.remaining()).isBetween(Duration.ofSeconds(1), Duration.ofSeconds(2));
+        }
+    }
+
+    @Test
+    void shouldIgnoreNonApiRoutes() {
+        assertThat(filter(MockServerHttpRequest.get("/actuator/health").build())).isNull();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springr2dbc.dto;
+
+import com.example.springr2dbc.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookFieldsTest {
+
+    @Test
+    void missingFieldsShouldSelectAllColumns() {
+        assertThat(BookFields.parse(null)).isSameAs(BookFields.ALL);
+        assertThat(BookFields.parse(" ")).isSameAs(BookFields.ALL);
+    }
+
+    @Test
+    void requestedFieldsShouldKeepColumnOrder() {
+        BookFields fields = BookFields.parse("title, id");
+
+        assertThat(fields.isAll()).isFalse();
+        assertThat(fields.columns()).containsExactly("id", "title");
+        assertThat(fields).isEqualTo(BookFields.parse("id,title"));
+    }
+
+    @Test
+    void unknownFieldShouldBeRejected() {
+        assertThatThrownBy(() -> BookFields.parse("id,isbn"))
+                .isInstanceOf(InvalidFieldsException.class)
+                .hasMessageContaining("isbn");
+    }
+}
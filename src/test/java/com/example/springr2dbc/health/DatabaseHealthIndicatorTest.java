@@ -1,41 +1,115 @@
 package com.example.springr2dbc.health;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
 import io.r2dbc.spi.Connection;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 class DatabaseHealthIndicatorTest {
 
     private ConnectionFactory connectionFactory;
     private Connection connection;
+    private Statement statement;
+    private Result result;
+    private MeterRegistry meterRegistry;
     private DatabaseHealthIndicator healthIndicator;
 
     @BeforeEach
     void setUp() {
         connectionFactory = mock(ConnectionFactory.class);
         connection = mock(Connection.class);
-        healthIndicator = new DatabaseHealthIndicator(connectionFactory);
+        statement = mock(Statement.class);
+        result = mock(Result.class);
+        meterRegistry = new SimpleMeterRegistry();
+        healthIndicator = indicator(Duration.ofSeconds(5), Duration.ofMinutes(1));
     }
 
-    @Test
-    void healthShouldBeUpWhenConnectionSucceeds() {
+    private DatabaseHealthIndicator indicator(Duration degradedThreshold, Duration staleAfter) {
+        return new DatabaseHealthIndicator(connectionFactory, meterRegistry, "SELECT 1", degradedThreshold,
+                Duration.ofMillis(200), staleAfter);
+    }
+
+    private void stubValidationQuery() {
         when(connectionFactory.create()).thenAnswer(invocation -> Mono.just(connection));
+        when(connection.createStatement("SELECT 1")).thenReturn(statement);
+        when(statement.execute()).thenAnswer(invocation -> Flux.just(result));
+        when(result.map(ArgumentMatchers.<BiFunction<Row, RowMetadata, Integer>>any())).thenAnswer(invocation -> Flux.just(1));
+    }
+
+    @Test
+    void healthShouldBeUnknownBeforeFirstProbe() {
+        StepVerifier.create(healthIndicator.health())
+                .expectNextMatches(health -> health.getStatus().equals(Status.UNKNOWN))
+                .verifyComplete();
+
+        verifyNoInteractions(connectionFactory);
+    }
+
+    @Test
+    void healthShouldBeUpWhenValidationSucceeds() {
+        stubValidationQuery();
         when(connection.close()).thenAnswer(invocation -> Mono.empty());
 
-        Mono<Health> healthMono = healthIndicator.health();
+        StepVerifier.create(healthIndicator.probe())
+                .verifyComplete();
 
-        StepVerifier.create(healthMono)
+        StepVerifier.create(healthIndicator.health())
                 .expectNextMatches(health -> health.getStatus().equals(Health.up().build().getStatus()))
                 .verifyComplete();
 
         verify(connectionFactory).create();
         verify(connection).close();
+        assertThat(meterRegistry.get("health.database.probe.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void healthShouldBeServedFromSnapshotWithoutNewConnections() {
+        stubValidationQuery();
+        when(connection.close()).thenAnswer(invocation -> Mono.empty());
+
+        StepVerifier.create(healthIndicator.probe())
+                .verifyComplete();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(healthIndicator.health())
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        verify(connectionFactory, times(1)).create();
+    }
+
+    @Test
+    void healthShouldBeDegradedWhenLatencyExceedsThreshold() {
+        healthIndicator = indicator(Duration.ZERO, Duration.ofMinutes(1));
+        stubValidationQuery();
+        when(connection.close()).thenAnswer(invocation -> Mono.empty());
+
+        StepVerifier.create(healthIndicator.probe())
+                .verifyComplete();
+
+        StepVerifier.create(healthIndicator.health())
+                .expectNextMatches(health -> health.getStatus().equals(DatabaseHealthIndicator.DEGRADED)
+                        && health.getDetails().containsKey("latency"))
+                .verifyComplete();
     }
 
     @Test
@@ -43,9 +117,10 @@ class DatabaseHealthIndicatorTest {
         RuntimeException exception = new RuntimeException("Connection failed");
         when(connectionFactory.create()).thenReturn(Mono.error(exception));
 
-        Mono<Health> healthMono = healthIndicator.health();
+        StepVerifier.create(healthIndicator.probe())
+                .verifyComplete();
 
-        StepVerifier.create(healthMono)
+        StepVerifier.create(healthIndicator.health())
                 .expectNextMatches(health -> {
                     if (!health.getStatus().equals(Health.down(exception).build().getStatus())) {
                         return false;
@@ -65,13 +140,14 @@ class DatabaseHealthIndicatorTest {
 
     @Test
     void healthShouldBeDownWhenCloseFails() {
-        when(connectionFactory.create()).thenAnswer(invocation -> Mono.just(connection));
+        stubValidationQuery();
         RuntimeException exception = new RuntimeException("Close failed");
         when(connection.close()).thenReturn(Mono.error(exception));
 
-        Mono<Health> healthMono = healthIndicator.health();
+        StepVerifier.create(healthIndicator.probe())
+                .verifyComplete();
 
-        StepVerifier.create(healthMono)
+        StepVerifier.create(healthIndicator.health())
                 .expectNextMatches(health -> {
                     if (!health.getStatus().equals(Health.down(exception).build().getStatus())) {
                         return false;
@@ -88,4 +164,34 @@ class DatabaseHealthIndicatorTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void healthShouldBeDownWhenProbeHangs() {
+        when(connectionFactory.create()).thenAnswer(invocation -> Mono.never());
+
+        StepVerifier.create(healthIndicator.probe())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(healthIndicator.health())
+                .expectNextMatches(health -> health.getStatus().equals(Status.DOWN)
+                        && String.valueOf(health.getDetails().get("error")).contains("TimeoutException"))
+                .verifyComplete();
+    }
+
+    @Test
+    void healthShouldBeDownWhenSnapshotIsStale() throws InterruptedException {
+        healthIndicator = indicator(Duration.ofSeconds(5), Duration.ofMillis(50));
+        stubValidationQuery();
+        when(connection.close()).thenAnswer(invocation -> Mono.empty());
+
+        StepVerifier.create(healthIndicator.probe())
+                .verifyComplete();
+        Thread.sleep(100);
+
+        StepVerifier.create(healthIndicator.health())
+                .expectNextMatches(health -> health.getStatus().equals(Status.DOWN)
+                        && health.getDetails().containsKey("checkedAt"))
+                .verifyComplete();
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.springr2dbc.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulerMetricsTest {
+
+    private MeterRegistry meterRegistry;
+    private SchedulerMetrics schedulerMetrics;
+    private Scheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Created first so its own executors are not instrumented
+        scheduler = Schedulers.newParallel("metrics-test", 3);
+        schedulerMetrics = new SchedulerMetrics(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+        schedulerMetrics.close();
+    }
+
+    @Test
+    void shouldTagExecutorsBySlotAndReuseSlotsOfShutDownExecutors() throws Exception {
+        List<ScheduledExecutorService> executors = IntStream.range(0, 3)
+                .mapToObj(i -> schedulerMetrics.decorate(scheduler, new ScheduledThreadPoolExecutor(1)))
+                .toList();
+        for (ScheduledExecutorService executor : executors) {
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(Search.in(meterRegistry).name("executor.pool.size").tag("scheduler", "parallel").gauges()).hasSize(3);
+        assertThat(meterRegistry.get("executor").tags("scheduler", "parallel", "slot", "1").timer().count()).isEqualTo(1);
+        assertThat(Search.in(meterRegistry).tagKeys("executor").meters()).isEmpty();
+
+        executors.get(0).shutdown();
+        executors.get(1).shutdownNow();
+        ScheduledExecutorService replacement = schedulerMetrics.decorate(scheduler, new ScheduledThreadPoolExecutor(1));
+        replacement.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        assertThat(Search.in(meterRegistry).name("executor.pool.size").tag("scheduler", "parallel").gauges()).hasSize(2);
+        assertThat(Search.in(meterRegistry).tags("scheduler", "parallel", "slot", "1").meters()).isEmpty();
+        assertThat(meterRegistry.get("executor").tags("scheduler", "parallel", "slot", "0").timer().count()).isEqualTo(1);
+
+        executors.get(2).shutdown();
+        replacement.shutdown();
+    }
+}
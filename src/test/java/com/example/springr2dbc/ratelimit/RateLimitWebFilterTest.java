@@ -0,0 +1,147 @@
+package com.example.springr2dbc.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitWebFilterTest {
+
+    private MeterRegistry meterRegistry;
+    private RateLimitWebFilter filter;
+    private AtomicInteger passed;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitWebFilter(meterRegistry, 1, 2, 1, 1, 1000, Duration.ofMinutes(1),
+                Set.of("client-a", "client-b"), Set.of("10.0.0.1", "10.0.0.2"));
+        passed = new AtomicInteger();
+        chain = exchange -> {
+            passed.incrementAndGet();
+            return Mono.empty();
+        };
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        StepVerifier.create(filter.filter(exchange, chain))
+                .verifyComplete();
+        return exchange;
+    }
+
+    @Test
+    void shouldThrottleClientAfterBurst() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/v1/books")
+                .header(RateLimitWebFilter.API_KEY_HEADER, "client-a")
+                .build();
+
+        MockServerWebExchange first = exchange(request);
+        exchange(request);
+        MockServerWebExchange throttled = exchange(request);
+
+        assertThat(passed.get()).isEqualTo(2);
+        assertThat(first.getResponse().getHeaders().getFirst(RateLimitWebFilter.LIMIT_HEADER)).isEqualTo("2");
+        assertThat(first.getResponse().getHeaders().getFirst(RateLimitWebFilter.REMAINING_HEADER)).isEqualTo("1");
+        assertThat(throttled.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(throttled.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("ratelimit.throttled").tag("route", "read").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerClientAndRoute() {
+        exchange(MockServerHttpRequest.post("/api/v1/books")
+                .header(RateLimitWebFilter.API_KEY_HEADER, "client-a")
+                .build());
+        MockServerWebExchange secondWrite = exchange(MockServerHttpRequest.post("/api/v1/books")
+                .header(RateLimitWebFilter.API_KEY_HEADER, "client-a")
+                .build());
+        exchange(MockServerHttpRequest.post("/api/v1/books")
+                .header(RateLimitWebFilter.API_KEY_HEADER, "client-b")
+                .build());
+        exchange(MockServerHttpRequest.get("/api/v1/books")
+                .header(RateLimitWebFilter.API_KEY_HEADER, "client-a")
+                .build());
+
+        assertThat(secondWrite.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(passed.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldKeyUnknownApiKeysByRemoteAddress() {
+        InetSocketAddress address = new InetSocketAddress("203.0.113.7", 40000);
+        for (int i = 0; i < 3; i++) {
+            exchange(MockServerHttpRequest.get("/api/v1/books")
+                    .header(RateLimitWebFilter.API_KEY_HEADER, UUID.randomUUID().toString())
+                    .remoteAddress(address)
+                    .build());
+        }
+        MockServerWebExchange known = exchange(MockServerHttpRequest.get("/api/v1/books")
+                .header(RateLimitWebFilter.API_KEY_HEADER, "client-a")
+                .remoteAddress(address)
+                .build());
+
+        assertThat(passed.get()).isEqualTo(3);
+        assertThat(known.getResponse().getStatusCode()).isNull();
+        assertThat(meterRegistry.get("ratelimit.clients").tag("route", "read").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIgnoreForwardedForFromUntrustedCallers() {
+        InetSocketAddress address = new InetSocketAddress("203.0.113.7", 40000);
+        for (int i = 0; i < 3; i++) {
+            exchange(MockServerHttpRequest.get("/api/v1/books")
+                    .header(RateLimitWebFilter.FORWARDED_FOR_HEADER, "198.51.100." + i)
+                    .remoteAddress(address)
+                    .build());
+        }
+
+        assertThat(passed.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("ratelimit.clients").tag("route", "read").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeyTrustedProxyRequestsByForwardedClient() {
+        InetSocketAddress proxy = new InetSocketAddress("10.0.0.1", 40000);
+        for (int i = 0; i < 3; i++) {
+            // The left-most entry is chosen by the client and must not create new buckets
+            exchange(MockServerHttpRequest.get("/api/v1/books")
+                    .header(RateLimitWebFilter.FORWARDED_FOR_HEADER, "192.0.2." + i + ", 198.51.100.1, 10.0.0.2")
+                    .remoteAddress(proxy)
+                    .build());
+        }
+        MockServerWebExchange other = exchange(MockServerHttpRequest.get("/api/v1/books")
+                .header(RateLimitWebFilter.FORWARDED_FOR_HEADER, "198.51.100.2")
+                .remoteAddress(proxy)
+                .build());
+
+        assertThat(passed.get()).isEqualTo(3);
+        assertThat(other.getResponse().getStatusCode()).isNull();
+        assertThat(meterRegistry.get("ratelimit.clients").tag("route", "read").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotLimitNonApiRoutes() {
+        for (int i = 0; i < 5; i++) {
+            exchange(MockServerHttpRequest.get("/actuator/health").build());
+        }
+
+        assertThat(passed.get()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.springr2dbc.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenThrottle() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 42;
+
+        assertThat(bucket.remaining(now)).isEqualTo(3);
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.remaining(now)).isZero();
+
+        assertThat(bucket.tryAcquire(now)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void shouldRefillAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = -SECOND;
+
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now + SECOND / 20)).isPositive();
+        assertThat(bucket.tryAcquire(now + SECOND / 10)).isZero();
+    }
+
+    @Test
+    void shouldNotAccumulateMoreThanBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        assertThat(bucket.remaining(10 * SECOND)).isEqualTo(2);
+        assertThat(bucket.tryAcquire(10 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(10 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(10 * SECOND)).isPositive();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.springr2dbc.repository.sharding;
+
+import com.example.springr2dbc.dto.BookFields;
+import com.example.springr2dbc.model.Book;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedBookStoreTest {
+
+    private static final int SHARDS = 3;
+
+    private List<ConnectionFactory> connectionFactories;
+    private ShardedBookStore store;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        // One spare shard for the resharding test
+        connectionFactories = IntStream.range(0, SHARDS + 1)
+                .mapToObj(i -> ConnectionFactories.get(
+                        "r2dbc:h2:mem:///shard" + i + "-" + run + "?options=DB_CLOSE_DELAY=-1"))
+                .toList();
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema-shard.sql"));
+        Flux.fromIterable(connectionFactories).concatMap(populator::populate).blockLast();
+
+        store = new ShardedBookStore(connectionFactories.subList(0, SHARDS));
+    }
+
+    private List<Book> saveBooks(String... titles) {
+        return Flux.fromArray(titles)
+                .concatMap(title -> store.save(new Book(title, "Desc " + title)))
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsSpreadAcrossShards() {
+        List<Book> saved = saveBooks("A", "B", "C", "D", "E", "F");
+
+        List<Integer> ids = saved.stream().map(Book::getId).toList();
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids.stream().map(ShardedBookStore::shardOf).distinct()).hasSize(SHARDS);
+    }
+
+    @Test
+    void shouldKeepRoutingExistingIdsAfterAddingShard() {
+        List<Book> saved = saveBooks("A", "B", "C");
+
+        ShardedBookStore grown = new ShardedBookStore(connectionFactories);
+
+        for (Book book : saved) {
+            StepVerifier.create(grown.findById(book.getId(), BookFields.ALL))
+                    .expectNext(book)
+                    .verifyComplete();
+        }
+        List<Book> added = Flux.range(0, SHARDS + 1)
+                .concatMap(i -> grown.save(new Book("New " + i, null)))
+                .collectList()
+                .block();
+        assertThat(added).extracting(book -> ShardedBookStore.shardOf(book.getId())).contains(SHARDS);
+    }
+
+    @Test
+    void shouldTreatIdsOfUnknownShardsAsMissing() {
+        int id = ShardedBookStore.idOf(SHARDS, 1);
+
+        StepVerifier.create(store.findById(id, BookFields.ALL))
+                .verifyComplete();
+        StepVerifier.create(store.deleteById(id))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRouteByIdOperationsToOwningShard() {
+        Book saved = saveBooks("A", "B").get(1);
+
+        StepVerifier.create(store.findById(saved.getId(), BookFields.ALL))
+                .expectNext(saved)
+                .verifyComplete();
+
+        saved.setTitle("B2");
+        StepVerifier.create(store.save(saved))
+                .expectNext(saved)
+                .verifyComplete();
+        StepVerifier.create(store.findById(saved.getId(), BookFields.parse("title")))
+                .assertNext(book -> {
+                    assertThat(book.getTitle()).isEqualTo("B2");
+                    assertThat(book.getDescription()).isNull();
+                })
+                .verifyComplete();
+
+        StepVerifier.create(store.deleteById(saved.getId()))
+                .verifyComplete();
+        StepVerifier.create(store.findById(saved.getId(), BookFields.ALL))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFailUpdateOfMissingBook() {
+        StepVerifier.create(store.save(new Book(42, "Ghost", null)))
+                .expectError(TransientDataAccessResourceException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldMergePagesFromAllShardsInIdOrder() {
+        List<Book> saved = saveBooks("A", "B", "C", "D", "E");
+        List<Book> sorted = saved.stream().sorted((a, b) -> Integer.compare(a.getId(), b.getId())).toList();
+
+        StepVerifier.create(store.findPage(2, 1, BookFields.ALL).collectList())
+                .expectNext(sorted.subList(1, 3))
+                .verifyComplete();
+
+        StepVerifier.create(store.count())
+                .expectNext(5L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldMergeSearchResultsFromAllShards() {
+        saveBooks("Java", "Kotlin", "Java Concurrency", "Effective Java");
+
+        StepVerifier.create(store.findByTitleContains("Java", BookFields.parse("title")).map(Book::getTitle).collectList())
+                .assertNext(titles -> assertThat(titles)
+                        .containsExactlyInAnyOrder("Java", "Java Concurrency", "Effective Java"))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldTruncateAllShards() {
+        saveBooks("A", "B", "C", "D");
+
+        StepVerifier.create(store.truncate().then(store.count()))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldDeleteChunksAcrossShardsInIdOrder() {
+        List<Integer> ids = saveBooks("A", "B", "C", "D", "E", "F", "G").stream()
+                .map(Book::getId)
+                .sorted()
+                .toList();
+
+        StepVerifier.create(store.findChunkEnd(Integer.MIN_VALUE, 3))
+                .expectNext(ids.get(2))
+                .verifyComplete();
+        StepVerifier.create(store.deleteRange(Integer.MIN_VALUE, ids.get(2)))
+                .expectNext(3L)
+                .verifyComplete();
+
+        StepVerifier.create(store.findChunkEnd(ids.get(2), 10))
+                .expectNext(ids.get(6))
+                .verifyComplete();
+        StepVerifier.create(store.deleteRange(ids.get(2), ids.get(6)).then(store.count()))
+                .expectNext(0L)
+                .verifyComplete();
+
+        StepVerifier.create(store.findChunkEnd(ids.get(6), 10))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.springr2dbc.service;
+
+import com.example.springr2dbc.exception.PurgeConflictException;
+import com.example.springr2dbc.repository.BookStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class BookPurgeServiceTest {
+
+    private BookStore store;
+    private BookQueryCache queryCache;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(BookStore.class);
+        meterRegistry = new SimpleMeterRegistry();
+        queryCache = new BookQueryCache(meterRegistry, true, 100, 10, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        when(store.count()).thenReturn(Mono.just(5L));
+        when(store.findChunkEnd(Integer.MIN_VALUE, 2)).thenReturn(Mono.just(2));
+        when(store.findChunkEnd(2, 2)).thenReturn(Mono.just(4));
+        when(store.findChunkEnd(4, 2)).thenReturn(Mono.just(5));
+        when(store.findChunkEnd(5, 2)).thenReturn(Mono.empty());
+        when(store.deleteRange(Integer.MIN_VALUE, 2)).thenReturn(Mono.just(2L));
+        when(store.deleteRange(2, 4)).thenReturn(Mono.just(2L));
+        when(store.deleteRange(4, 5)).thenReturn(Mono.just(1L));
+    }
+
+    private BookPurgeService purgeService(double rowsPerSecond) {
+        return new BookPurgeService(store, queryCache, meterRegistry, 2, rowsPerSecond, Duration.ofHours(1));
+    }
+
+    @Test
+    void shouldDeleteInIdOrderedChunks() {
+        PurgeJob job = new PurgeJob("job", false);
+
+        StepVerifier.create(purgeService(0).run(job))
+                .verifyComplete();
+
+        assertThat(job.getStatus()).isEqualTo(PurgeJob.Status.COMPLETED);
+        assertThat(job.getTotalRows()).isEqualTo(5);
+        assertThat(job.getDeletedRows()).isEqualTo(5);
+        assertThat(job.getChunks()).isEqualTo(3);
+        assertThat(job.getLastDeletedId()).isEqualTo(5);
+        assertThat(meterRegistry.get("book.purge.rows").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("book.purge.chunks").counter().count()).isEqualTo(3);
+        verify(store, never()).truncate();
+    }
+
+    @Test
+    void shouldPauseBetweenChunksToRespectRowRate() {
+        PurgeJob job = new PurgeJob("job", false);
+
+        // 2 rows at 1 row/s: the second chunk waits two seconds after the first
+        StepVerifier.withVirtualTime(() -> purgeService(1).run(job))
+                .expectSubscription()
+                .then(() -> assertThat(job.getChunks()).isEqualTo(1))
+                .thenAwait(Duration.ofSeconds(1))
+                .then(() -> assertThat(job.getChunks()).isEqualTo(1))
+                .thenAwait(Duration.ofSeconds(1))
+                .then(() -> assertThat(job.getChunks()).isEqualTo(2))
+                .thenAwait(Duration.ofSeconds(3))
+                .verifyComplete();
+
+        assertThat(job.getDeletedRows()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldTruncateWhenRequested() {
+        when(store.truncate()).thenReturn(Mono.empty());
+        PurgeJob job = new PurgeJob("job", true);
+
+        StepVerifier.create(purgeService(0).run(job))
+                .verifyComplete();
+
+        assertThat(job.getStatus()).isEqualTo(PurgeJob.Status.COMPLETED);
+        assertThat(job.getDeletedRows()).isEqualTo(5);
+        verify(store, never()).deleteRange(anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldRecordFailure() {
+        when(store.deleteRange(2, 4)).thenReturn(Mono.error(new IllegalStateException("lock wait timeout")));
+        PurgeJob job = new PurgeJob("job", false);
+
+        StepVerifier.create(purgeService(0).run(job))
+                .verifyComplete();
+
+        assertThat(job.getStatus()).isEqualTo(PurgeJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("lock wait timeout");
+        assertThat(job.getDeletedRows()).isEqualTo(2);
+        assertThat(meterRegistry.get("book.purge.errors").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInvalidateQueryCache() {
+        StepVerifier.create(queryCache.get("page", List.of(0), () -> Mono.just("before")))
+                .expectNext("before")
+                .verifyComplete();
+
+        StepVerifier.create(purgeService(0).run(new PurgeJob("job", false)))
+                .verifyComplete();
+
+        StepVerifier.create(queryCache.get("page", List.of(0), () -> Mono.just("after")))
+                .expectNext("after")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReturnRunningJobInsteadOfStartingAnother() {
+        when(store.count()).thenReturn(Mono.never());
+        BookPurgeService purgeService = purgeService(0);
+
+        PurgeJob first = purgeService.start(false).block();
+        PurgeJob second = purgeService.start(false).block();
+
+        assertThat(second).isSameAs(first);
+        StepVerifier.create(purgeService.findJob(first.getId()))
+                .expectNext(first)
+                .verifyComplete();
+        StepVerifier.create(purgeService.findJob("unknown"))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectOtherModeWhileRunning() {
+        when(store.count()).thenReturn(Mono.never());
+        BookPurgeService purgeService = purgeService(0);
+
+        purgeService.start(false).block();
+
+        StepVerifier.create(purgeService.start(true))
+                .expectError(PurgeConflictException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldStopRunningPurgeOnShutdown() {
+        when(store.count()).thenReturn(Mono.never());
+        BookPurgeService purgeService = purgeService(0);
+
+        PurgeJob job = purgeService.start(false).block();
+        purgeService.shutdown();
+
+        assertThat(job.getStatus()).isEqualTo(PurgeJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Purge stopped by shutdown");
+    }
+}
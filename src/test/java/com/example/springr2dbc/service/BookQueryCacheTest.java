@@ -0,0 +1,152 @@
+package com.example.springr2dbc.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookQueryCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private BookQueryCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BookQueryCache(meterRegistry, true, 100, 10, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        loads = new AtomicInteger();
+    }
+
+    private Mono<String> load() {
+        return Mono.fromSupplier(() -> "result-" + loads.incrementAndGet());
+    }
+
+    @Test
+    void shouldServeRepeatedQueryFromCache() {
+        StepVerifier.create(cache.get("page", List.of(0, 10), this::load))
+                .expectNext("result-1")
+                .verifyComplete();
+        StepVerifier.create(cache.get("page", List.of(0, 10), this::load))
+                .expectNext("result-1")
+                .verifyComplete();
+        StepVerifier.create(cache.get("page", List.of(1, 10), this::load))
+                .expectNext("result-2")
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        cache.get("page", List.of(0, 10), this::load).block();
+        cache.invalidate();
+
+        StepVerifier.create(cache.get("page", List.of(0, 10), this::load))
+                .expectNext("result-2")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldShareConcurrentLoadForSameKey() {
+        Sinks.One<String> result = Sinks.one();
+        Mono<String> first = cache.get("search", List.of("java"), () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = cache.get("search", List.of("java"), this::load);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.tryEmitValue("shared"))
+                .assertNext(pair -> assertThat(pair.getT2()).isEqualTo("shared"))
+                .verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCancelLoadWhenLastCallerCancels() {
+        AtomicInteger cancelled = new AtomicInteger();
+        Supplier<Mono<String>> never = () -> Mono.<String>never().doOnCancel(cancelled::incrementAndGet);
+
+        Disposable first = cache.get("page", List.of(0, 10), never).subscribe();
+        Disposable second = cache.get("page", List.of(0, 10), never).subscribe();
+
+        first.dispose();
+        assertThat(cancelled.get()).isZero();
+        second.dispose();
+        assertThat(cancelled.get()).isEqualTo(1);
+
+        StepVerifier.create(cache.get("page", List.of(0, 10), this::load))
+                .expectNext("result-1")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldLoadOutsideCallerContext() {
+        StepVerifier.create(cache.get("page", List.of(0, 10),
+                                () -> Mono.deferContextual(context -> Mono.just(context.hasKey("caller"))))
+                        .contextWrite(Context.of("caller", true)))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldBoundLoadWithItsOwnTimeout() {
+        StepVerifier.withVirtualTime(() -> cache.get("page", List.of(0, 10), Mono::<String>never))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldNotCacheFailures() {
+        StepVerifier.create(cache.get("page", List.of(0, 10), () -> Mono.error(new IllegalStateException("down"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(cache.get("page", List.of(0, 10), this::load))
+                .expectNext("result-1")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotKeepResultsOverEntryRowLimit() {
+        Supplier<Mono<List<Integer>>> search = () -> {
+            loads.incrementAndGet();
+            return Mono.just(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+        };
+
+        StepVerifier.create(cache.get("search", List.of("Book"), search))
+                .expectNextMatches(books -> books.size() == 11)
+                .verifyComplete();
+        StepVerifier.create(cache.get("search", List.of("Book"), search))
+                .expectNextMatches(books -> books.size() == 11)
+                .verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPassThroughWhenDisabled() {
+        cache = new BookQueryCache(meterRegistry, false, 100, 10, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        cache.get("page", List.of(0, 10), this::load).block();
+        cache.get("page", List.of(0, 10), this::load).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.springr2dbc.service;
 
 
+import com.example.springr2dbc.dto.BookFields;
 import com.example.springr2dbc.model.Book;
 import com.example.springr2dbc.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -20,12 +22,16 @@ import java.util.List;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
-@SpringBootTest
+@SpringBootTest(properties = "warmup.enabled=false")
+@ActiveProfiles("h2")
 class BookServiceTest {
 
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookQueryCache queryCache;
+
     @MockitoBean
     private BookRepository bookRepository;
 
@@ -34,6 +40,7 @@ class BookServiceTest {
 
     @BeforeEach
     void setUp() {
+        queryCache.clear();
         book1 = new Book(1, "Book A", "Desc A");
         book2 = new Book(2, "Book B", "Desc B");
     }
@@ -49,7 +56,7 @@ class BookServiceTest {
         Mockito.when(bookRepository.countAll())
                 .thenReturn(Mono.just(total));
 
-        Mono<Page<Book>> result = bookService.getAllBooks(pageable);
+        Mono<Page<Book>> result = bookService.getAllBooks(pageable, BookFields.ALL);
 
         StepVerifier.create(result)
                 .assertNext(page -> {
@@ -61,12 +68,76 @@ class BookServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldServeRepeatedPageFromCacheUntilCatalogChanges() {
+        Pageable pageable = PageRequest.of(0, 20);
+
+        Mockito.when(bookRepository.findAllPaged(pageable.getPageSize(), (int) pageable.getOffset()))
+                .thenReturn(Flux.just(book1, book2));
+        Mockito.when(bookRepository.countAll())
+                .thenReturn(Mono.just(2L));
+        Mockito.when(bookRepository.save(book1))
+                .thenReturn(Mono.just(book1));
+
+        StepVerifier.create(bookService.getAllBooks(pageable, BookFields.ALL).then(bookService.getAllBooks(pageable, BookFields.ALL)))
+                .expectNextCount(1)
+                .verifyComplete();
+        Mockito.verify(bookRepository, Mockito.times(1)).countAll();
+
+        StepVerifier.create(bookService.saveBook(book1).then(bookService.getAllBooks(pageable, BookFields.ALL)))
+                .expectNextCount(1)
+                .verifyComplete();
+        Mockito.verify(bookRepository, Mockito.times(2)).countAll();
+    }
+
+    @Test
+    void shouldServeRepeatedSearchFromCache() {
+        Mockito.when(bookRepository.findByTitleContains("Book"))
+                .thenReturn(Flux.just(book1, book2));
+
+        StepVerifier.create(bookService.findByTitleContains("Book", BookFields.ALL).thenMany(bookService.findByTitleContains("Book", BookFields.ALL)))
+                .expectNext(book1, book2)
+                .verifyComplete();
+
+        Mockito.verify(bookRepository, Mockito.times(1)).findByTitleContains("Book");
+    }
+
+    @Test
+    void shouldProjectRequestedColumnsForAllBooks() {
+        Pageable pageable = PageRequest.of(0, 20);
+        BookFields fields = BookFields.parse("title,id");
+        Book projected = new Book(1, "Book A", null);
+
+        Mockito.when(bookRepository.findAllPaged(pageable.getPageSize(), (int) pageable.getOffset(), List.of("id", "title")))
+                .thenReturn(Flux.just(projected));
+        Mockito.when(bookRepository.countAll())
+                .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(bookService.getAllBooks(pageable, fields))
+                .assertNext(page -> assertThat(page.getContent()).containsExactly(projected))
+                .verifyComplete();
+
+        Mockito.verify(bookRepository, Mockito.never()).findAllPaged(Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    void shouldProjectRequestedColumnsForBookById() {
+        Book projected = new Book(0, "Book A", null);
+
+        Mockito.when(bookRepository.findById(1, List.of("title")))
+                .thenReturn(Mono.just(projected));
+
+        StepVerifier.create(bookService.getBookById(1, BookFields.parse("title")))
+                .expectNext(projected)
+                .verifyComplete();
+    }
+
     @Test
     void shouldReturnBookById() {
         Mockito.when(bookRepository.findById(1))
                 .thenReturn(Mono.just(book1));
 
-        StepVerifier.create(bookService.getBookById(1))
+        StepVerifier.create(bookService.getBookById(1, BookFields.ALL))
                 .expectNext(book1)
                 .verifyComplete();
     }
@@ -76,7 +147,7 @@ class BookServiceTest {
         Mockito.when(bookRepository.findById(99))
                 .thenReturn(Mono.empty());
 
-        StepVerifier.create(bookService.getBookById(99))
+        StepVerifier.create(bookService.getBookById(99, BookFields.ALL))
                 .verifyComplete();
     }
 
@@ -123,13 +194,4 @@ class BookServiceTest {
         StepVerifier.create(bookService.deleteById(1))
                 .verifyComplete();
     }
-
-    @Test
-    void shouldDeleteAllBooks() {
-        Mockito.when(bookRepository.deleteAll())
-                .thenReturn(Mono.empty());
-
-        StepVerifier.create(bookService.deleteAll())
-                .verifyComplete();
-    }
 }
@@ -0,0 +1,145 @@
+package com.example.springr2dbc.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadHedgerTest {
+
+    private MeterRegistry meterRegistry;
+    private AtomicInteger attempts;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        attempts = new AtomicInteger();
+    }
+
+    private ReadHedger hedger(boolean enabled, double budgetRatio) {
+        return new ReadHedger(meterRegistry, enabled, Duration.ofMillis(10), Duration.ofMillis(100), budgetRatio, 10);
+    }
+
+    private Mono<String> slowThenFast() {
+        return attempts.getAndIncrement() == 0
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn("slow")
+                : Mono.just("fast");
+    }
+
+    @Test
+    void shouldTakeHedgeWhenPrimaryIsSlow() {
+        ReadHedger hedger = hedger(true, 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(this::slowThenFast))
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext("fast")
+                .verifyComplete();
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("book.hedging.issued").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.hedging.won").counter().count()).isEqualTo(1);
+        // The cancelled primary is timed too, not only the winner
+        assertThat(meterRegistry.get("book.hedging.attempt.duration").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTimeFailedAttempts() {
+        ReadHedger hedger = hedger(true, 1.0);
+
+        StepVerifier.create(hedger.hedge(() -> Mono.error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertThat(meterRegistry.get("book.hedging.attempt.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotHedgeWhenPrimaryIsFast() {
+        ReadHedger hedger = hedger(true, 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.just("fast");
+                }))
+                .expectNext("fast")
+                .verifyComplete();
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.hedging.issued").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldNotHedgeWhenBudgetIsExhausted() {
+        ReadHedger hedger = hedger(true, 0.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(this::slowThenFast))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext("slow")
+                .verifyComplete();
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.hedging.issued").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldPassThroughWhenDisabled() {
+        ReadHedger hedger = hedger(false, 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(this::slowThenFast))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext("slow")
+                .verifyComplete();
+
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTakeHedgeWhenPrimaryFailsAfterHedgeIssued() {
+        ReadHedger hedger = hedger(true, 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(() -> attempts.getAndIncrement() == 0
+                        ? Mono.delay(Duration.ofMillis(20)).then(Mono.<String>error(new IllegalStateException("boom")))
+                        : Mono.delay(Duration.ofMillis(50)).thenReturn("hedge")))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("book.hedging.won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailWithPrimaryErrorWhenBothAttemptsFail() {
+        ReadHedger hedger = hedger(true, 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(() -> attempts.getAndIncrement() == 0
+                        ? Mono.delay(Duration.ofMillis(20)).then(Mono.<String>error(new IllegalStateException("primary")))
+                        : Mono.delay(Duration.ofMillis(50)).then(Mono.<String>error(new IllegalStateException("hedge")))))
+                .thenAwait(Duration.ofMillis(100))
+                .expectErrorSatisfies(e -> {
+                    assertThat(e).hasMessage("primary");
+                    assertThat(e.getSuppressed()).extracting(Throwable::getMessage).containsExactly("hedge");
+                })
+                .verify();
+    }
+
+    @Test
+    void shouldNotCountEmptyHedgeAsWin() {
+        ReadHedger hedger = hedger(true, 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(() -> attempts.getAndIncrement() == 0
+                        ? Mono.delay(Duration.ofSeconds(5)).thenReturn("slow")
+                        : Mono.<String>empty()))
+                .thenAwait(Duration.ofMillis(10))
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("book.hedging.issued").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.hedging.won").counter().count()).isZero();
+    }
+}
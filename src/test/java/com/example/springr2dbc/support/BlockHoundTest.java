@@ -0,0 +1,32 @@
+package com.example.springr2dbc.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+/**
+ * Guards the blockhound profile itself: if BlockHound were not installed the
+ * other suites would silently stop detecting blocking calls.
+ */
+@EnabledIfSystemProperty(named = "blockhound.enabled", matches = "true")
+class BlockHoundTest {
+
+    @Test
+    void blockingCallOnParallelThreadShouldFail() {
+        Mono<Long> blocking = Mono.delay(Duration.ofMillis(1))
+                .doOnNext(tick -> {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        StepVerifier.create(blocking)
+                .expectErrorMatches(error -> error.getClass().getName().equals("reactor.blockhound.BlockingOperationError"))
+                .verify();
+    }
+}
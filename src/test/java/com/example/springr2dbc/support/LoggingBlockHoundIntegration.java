@@ -0,0 +1,16 @@
+package com.example.springr2dbc.support;
+
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+/**
+ * Console logging writes synchronously; that is acceptable in tests and should
+ * not be reported as a blocking call.
+ */
+public class LoggingBlockHoundIntegration implements BlockHoundIntegration {
+
+    @Override
+    public void applyTo(BlockHound.Builder builder) {
+        builder.allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "writeBytes");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.springr2dbc.tracing;
+
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanReporter;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects exported spans in memory so tests can assert on them.
+ */
+@TestComponent
+public class InMemorySpanReporter implements SpanReporter {
+
+    private final List<FinishedSpan> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void report(FinishedSpan span) {
+        spans.add(span);
+    }
+
+    public List<FinishedSpan> spans() {
+        return List.copyOf(spans);
+    }
+
+    public void clear() {
+        spans.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.springr2dbc.tracing;
+
+import brave.handler.MutableSpan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.brave.bridge.BraveFinishedSpan;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TailSamplingSpanExportingPredicateTest {
+
+    private MeterRegistry meterRegistry;
+    private TailSamplingSpanExportingPredicate predicate;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        predicate = new TailSamplingSpanExportingPredicate(meterRegistry, Duration.ofMillis(100), 100, Duration.ofMinutes(1));
+    }
+
+    private static FinishedSpan span(String traceId, String spanId, long durationMillis) {
+        MutableSpan span = new MutableSpan();
+        span.traceId(traceId);
+        span.id(spanId);
+        span.startTimestamp(1_000_000L);
+        span.finishTimestamp(1_000_000L + durationMillis * 1000);
+        return BraveFinishedSpan.fromBrave(span);
+    }
+
+    @Test
+    void shouldDropFastSuccessfulTrace() {
+        assertThat(predicate.isExportable(span("a", "1", 5))).isFalse();
+        assertThat(predicate.isExportable(span("a", "2", 10))).isFalse();
+
+        assertThat(meterRegistry.get("tracing.tail-sampling.spans").tag("decision", "dropped").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepSlowSpanAndLaterSpansOfItsTrace() {
+        assertThat(predicate.isExportable(span("b", "1", 5))).isFalse();
+        assertThat(predicate.isExportable(span("b", "2", 150))).isTrue();
+        assertThat(predicate.isExportable(span("b", "3", 160))).isTrue();
+        assertThat(predicate.isExportable(span("c", "1", 5))).isFalse();
+    }
+
+    @Test
+    void shouldKeepFailedTrace() {
+        MutableSpan failed = new MutableSpan();
+        failed.traceId("d");
+        failed.id("1");
+        failed.startTimestamp(1_000_000L);
+        failed.finishTimestamp(1_001_000L);
+        failed.error(new IllegalStateException("boom"));
+
+        assertThat(predicate.isExportable(BraveFinishedSpan.fromBrave(failed))).isTrue();
+        assertThat(predicate.isExportable(span("d", "2", 5))).isTrue();
+    }
+
+    @Test
+    void shouldKeepServerErrorOutcome() {
+        MutableSpan exchange = new MutableSpan();
+        exchange.traceId("e");
+        exchange.id("1");
+        exchange.startTimestamp(1_000_000L);
+        exchange.finishTimestamp(1_001_000L);
+        exchange.tag("outcome", "SERVER_ERROR");
+
+        assertThat(predicate.isExportable(BraveFinishedSpan.fromBrave(exchange))).isTrue();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.springr2dbc.tracing;
+
+import com.example.springr2dbc.dto.BookFields;
+import com.example.springr2dbc.model.Book;
+import com.example.springr2dbc.repository.BookRepository;
+import com.example.springr2dbc.service.BookService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"management.tracing.sampling.probability=1.0", "warmup.enabled=false"})
+@ActiveProfiles("h2")
+@AutoConfigureObservability
+@Import(InMemorySpanReporter.class)
+class TracingTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private InMemorySpanReporter spanReporter;
+
+    @MockitoSpyBean
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        spanReporter.clear();
+    }
+
+    @Test
+    void shouldRecordSpanForServiceCall() {
+        Mockito.doReturn(Mono.just(new Book(1, "Book A", "Desc A")))
+                .when(bookRepository).findById(1);
+
+        bookService.getBookById(1, BookFields.ALL).block();
+
+        assertThat(serviceSpans("getBookById")).singleElement()
+                .satisfies(span -> assertThat(span.getError()).isNull());
+    }
+
+    @Test
+    void shouldRecordFailedServiceCall() {
+        Mockito.doReturn(Mono.error(new IllegalStateException("boom")))
+                .when(bookRepository).findById(2);
+
+        bookService.getBookById(2, BookFields.ALL).onErrorResume(e -> Mono.empty()).block();
+
+        assertThat(serviceSpans("getBookById")).isNotEmpty()
+                .allSatisfy(span -> assertThat(span.getError()).isInstanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    void shouldNestServiceSpanUnderCurrentObservation() {
+        Mockito.doReturn(Mono.just(new Book(1, "Book A", "Desc A")))
+                .when(bookRepository).findById(1);
+
+        Observation.createNotStarted("test.request", observationRegistry)
+                .observe(() -> bookService.getBookById(1, BookFields.ALL).block());
+
+        FinishedSpan parent = spanReporter.spans().stream()
+                .filter(span -> span.getName().equals("test.request"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(serviceSpans("getBookById")).singleElement()
+                .satisfies(span -> {
+                    assertThat(span.getTraceId()).isEqualTo(parent.getTraceId());
+                    assertThat(span.getParentId()).isEqualTo(parent.getSpanId());
+                });
+    }
+
+    @Test
+    void shouldNestSqlSpanUnderServiceSpan() {
+        bookService.getBookById(1, BookFields.ALL).block();
+
+        FinishedSpan service = serviceSpans("getBookById").getFirst();
+        assertThat(spanReporter.spans())
+                .filteredOn(span -> span.getTags().getOrDefault("r2dbc.query[0]", "").contains("FROM books"))
+                .singleElement()
+                .satisfies(span -> {
+                    assertThat(span.getTraceId()).isEqualTo(service.getTraceId());
+                    assertThat(span.getParentId()).isEqualTo(service.getSpanId());
+                });
+    }
+
+    private List<FinishedSpan> serviceSpans(String method) {
+        return spanReporter.spans().stream()
+                .filter(span -> span.getName().equals("book.service"))
+                .filter(span -> method.equals(span.getTags().get("method")))
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.springr2dbc.warmup;
+
+import com.example.springr2dbc.health.WarmupHealthIndicator;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "warmup.batch-size=20", "warmup.min-batches=1", "warmup.max-batches=2",
+        "ratelimit.read.permits-per-second=1", "ratelimit.read.burst=1"})
+@ActiveProfiles("h2")
+class WarmupEndToEndTest {
+
+    @Autowired
+    private WarmupHealthIndicator healthIndicator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Test
+    void warmupShouldUseRealRequestPathWithoutTouchingLiveTrafficState() {
+        Health health = Mono.defer(healthIndicator::health)
+                .filter(current -> !Status.OUT_OF_SERVICE.equals(current.getStatus()))
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+                .block(Duration.ofSeconds(30));
+
+        // A single rate-limited or failed request would have triggered a retry
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).doesNotContainKey("error");
+        assertThat(meterRegistry.get("warmup.batches").counter().count()).isPositive();
+        assertThat(meterRegistry.get("warmup.retries").counter().count()).isZero();
+
+        assertThat(Search.in(meterRegistry).name(name -> name.startsWith("book.get") || name.startsWith("book.find")).meters()).isEmpty();
+        assertThat(Search.in(meterRegistry).name("http.server.requests").meters()).isEmpty();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "bookQueries").tag("result", "miss").functionCounter().count()).isZero();
+        assertThat(meterRegistry.get("ratelimit.clients").tag("route", "read").gauge().value()).isZero();
+        assertThat(circuitBreakerRegistry.circuitBreaker("bookService").getMetrics().getNumberOfBufferedCalls()).isZero();
+    }
+}
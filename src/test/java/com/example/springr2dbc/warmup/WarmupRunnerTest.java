@@ -0,0 +1,162 @@
+package com.example.springr2dbc.warmup;
+
+import com.example.springr2dbc.health.WarmupHealthIndicator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarmupRunnerTest {
+
+    private WarmupWebFilter warmupWebFilter;
+    private WarmupHealthIndicator healthIndicator;
+    private MeterRegistry meterRegistry;
+    private List<ClientRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        warmupWebFilter = new WarmupWebFilter();
+        healthIndicator = new WarmupHealthIndicator();
+        meterRegistry = new SimpleMeterRegistry();
+        requests = new CopyOnWriteArrayList<>();
+    }
+
+    private WarmupRunner runner(boolean enabled, int maxBatches, double stabilityThreshold) {
+        return new WarmupRunner(warmupWebFilter, healthIndicator, meterRegistry,
+                enabled, 10, 3, maxBatches, Duration.ofSeconds(30), stabilityThreshold, 2, Duration.ofMillis(10));
+    }
+
+    private WebClient client(Function<ClientRequest, HttpStatus> status) {
+        return WebClient.builder()
+                .defaultHeader(Warmup.HEADER, warmupWebFilter.token())
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return Mono.just(ClientResponse.create(status.apply(request)).build());
+                })
+                .build();
+    }
+
+    private WebClient client() {
+        return client(request -> HttpStatus.OK);
+    }
+
+    private List<String> paths(String prefix) {
+        return requests.stream()
+                .map(request -> request.url().getPath())
+                .filter(path -> path.startsWith(prefix))
+                .toList();
+    }
+
+    private Status status() {
+        return healthIndicator.health().block().getStatus();
+    }
+
+    @Test
+    void shouldBeOutOfServiceBeforeWarmup() {
+        assertThat(status()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void shouldStopOnceTimingsAreStable() {
+        StepVerifier.create(runner(true, 50, 1000).run(client()))
+                .verifyComplete();
+
+        assertThat(status()).isEqualTo(Status.UP);
+        assertThat(meterRegistry.get("warmup.batches").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("warmup.duration").timer().count()).isEqualTo(1);
+        assertThat(requests).hasSize(90);
+    }
+
+    @Test
+    void shouldStopAtMaxBatchesWhenTimingsNeverStabilize() {
+        StepVerifier.create(runner(true, 5, -1).run(client()))
+                .verifyComplete();
+
+        assertThat(status()).isEqualTo(Status.UP);
+        assertThat(meterRegistry.get("warmup.batches").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldSendMarkedRequestsWithVaryingKeys() {
+        StepVerifier.create(runner(true, 5, 1000).run(client()))
+                .verifyComplete();
+
+        assertThat(requests).allSatisfy(request ->
+                assertThat(request.headers().getFirst(Warmup.HEADER)).isEqualTo(warmupWebFilter.token()));
+        assertThat(paths("/api/v1/books/search")).hasSize(30);
+        List<String> byId = paths("/api/v1/books/").stream()
+                .filter(path -> !path.endsWith("/search"))
+                .toList();
+        assertThat(byId).hasSize(30).doesNotHaveDuplicates();
+        assertThat(requests).extracting(request -> request.url().getQuery())
+                .contains("page=0&size=20", "page=29&size=20&fields=id,title");
+    }
+
+    @Test
+    void shouldTreatMissingBooksAsSuccess() {
+        StepVerifier.create(runner(true, 5, 1000).run(client(request -> HttpStatus.NOT_FOUND)))
+                .verifyComplete();
+
+        assertThat(healthIndicator.health().block().getDetails()).doesNotContainKey("error");
+        assertThat(meterRegistry.get("warmup.retries").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldRetryAfterFailure() {
+        AtomicInteger calls = new AtomicInteger();
+
+        StepVerifier.create(runner(true, 5, 1000).run(client(request ->
+                        calls.incrementAndGet() == 1 ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK)))
+                .verifyComplete();
+
+        assertThat(status()).isEqualTo(Status.UP);
+        assertThat(healthIndicator.health().block().getDetails()).doesNotContainKey("error");
+        assertThat(meterRegistry.get("warmup.retries").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("warmup.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBecomeReadyWhenRetriesRunOut() {
+        StepVerifier.create(runner(true, 5, 1000).run(client(request -> HttpStatus.INTERNAL_SERVER_ERROR)))
+                .verifyComplete();
+
+        Health health = healthIndicator.health().block();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKey("error");
+        assertThat(meterRegistry.get("warmup.retries").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.find("warmup.duration").timer().count()).isZero();
+    }
+
+    @Test
+    void shouldBeReadyImmediatelyWhenDisabled() {
+        StepVerifier.create(runner(false, 50, 0.1).run(client()))
+                .verifyComplete();
+
+        assertThat(status()).isEqualTo(Status.UP);
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void shouldBeReadyImmediatelyWithoutServer() {
+        StepVerifier.create(runner(true, 50, 0.1).run(null))
+                .verifyComplete();
+
+        assertThat(status()).isEqualTo(Status.UP);
+    }
+}